@@ -4,6 +4,9 @@ import com.oneclickvideo.config.OneClickVideoProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Clock;
 
 /**
  * One Click Video Generator Application
@@ -20,4 +23,9 @@ public class OneClickVideoApplication {
         System.out.println("🚴‍♂️ One Click Video Generator started!");
         System.out.println("Open: http://localhost:8080");
     }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
 }
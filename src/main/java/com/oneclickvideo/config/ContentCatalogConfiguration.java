@@ -0,0 +1,26 @@
+package com.oneclickvideo.config;
+
+import com.oneclickvideo.content.ContentCatalog;
+import com.oneclickvideo.content.ContentCatalogLoader;
+import com.oneclickvideo.content.IndexedContentCatalog;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class ContentCatalogConfiguration {
+
+    @Bean
+    public ContentCatalog contentCatalog(OneClickVideoProperties properties) throws IOException {
+        String catalogFile = properties.getContent().getCatalogFile();
+        IndexedContentCatalog catalog = catalogFile == null || catalogFile.isBlank()
+            ? ContentCatalogLoader.loadDefault()
+            : ContentCatalogLoader.load(Path.of(catalogFile));
+
+        System.out.println("Content catalog loaded: " + catalog.size() + " entries, ~" +
+            catalog.footprintBytes() / 1024 + " KiB");
+        return catalog;
+    }
+}
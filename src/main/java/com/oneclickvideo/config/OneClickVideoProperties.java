@@ -2,11 +2,24 @@ package com.oneclickvideo.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "one-click-video")
 public class OneClickVideoProperties {
 
     private final Video video = new Video();
     private final Content content = new Content();
+    private final Warmup warmup = new Warmup();
+    private final Storage storage = new Storage();
+    private final Adaptive adaptive = new Adaptive();
+    private final Outputs outputs = new Outputs();
+    private final Scheduler scheduler = new Scheduler();
+    private final Encoding encoding = new Encoding();
+    private final Tracing tracing = new Tracing();
+    private final Reactive reactive = new Reactive();
 
     public Video getVideo() {
         return video;
@@ -16,6 +29,38 @@ public class OneClickVideoProperties {
         return content;
     }
 
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public Adaptive getAdaptive() {
+        return adaptive;
+    }
+
+    public Outputs getOutputs() {
+        return outputs;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
     public static class Video {
         private int duration = 30;
         private int width = 1920;
@@ -23,6 +68,11 @@ public class OneClickVideoProperties {
         private String outputDir = "./generated-videos/";
         private String ffmpegCommand = "ffmpeg";
         private long ffmpegTimeoutSeconds = 120;
+        private String preset = "medium";
+        private int renderThreads = 0;
+        private int spoolSlots = 8;
+        private int frameRate = 1;
+        private double scrollSeconds = 0.5;
 
         public int getDuration() {
             return duration;
@@ -71,12 +121,53 @@ public class OneClickVideoProperties {
         public void setFfmpegTimeoutSeconds(long ffmpegTimeoutSeconds) {
             this.ffmpegTimeoutSeconds = ffmpegTimeoutSeconds;
         }
+
+        public String getPreset() {
+            return preset;
+        }
+
+        public void setPreset(String preset) {
+            this.preset = preset;
+        }
+
+        public int getRenderThreads() {
+            return renderThreads;
+        }
+
+        public void setRenderThreads(int renderThreads) {
+            this.renderThreads = renderThreads;
+        }
+
+        public int getSpoolSlots() {
+            return spoolSlots;
+        }
+
+        public void setSpoolSlots(int spoolSlots) {
+            this.spoolSlots = spoolSlots;
+        }
+
+        public int getFrameRate() {
+            return frameRate;
+        }
+
+        public void setFrameRate(int frameRate) {
+            this.frameRate = frameRate;
+        }
+
+        public double getScrollSeconds() {
+            return scrollSeconds;
+        }
+
+        public void setScrollSeconds(double scrollSeconds) {
+            this.scrollSeconds = scrollSeconds;
+        }
     }
 
     public static class Content {
         private boolean safetyFocused = true;
         private boolean kidFriendly = true;
         private String channelName = "Riding Roney";
+        private String catalogFile = "";
 
         public boolean isSafetyFocused() {
             return safetyFocused;
@@ -101,5 +192,460 @@ public class OneClickVideoProperties {
         public void setChannelName(String channelName) {
             this.channelName = channelName;
         }
+
+        public String getCatalogFile() {
+            return catalogFile;
+        }
+
+        public void setCatalogFile(String catalogFile) {
+            this.catalogFile = catalogFile;
+        }
+    }
+
+    public static class Warmup {
+        private boolean enabled = true;
+        private int frames = 3;
+        private boolean probeFfmpeg = true;
+        private long ffmpegProbeTimeoutSeconds = 10;
+        private boolean exitWhenDone = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFrames() {
+            return frames;
+        }
+
+        public void setFrames(int frames) {
+            this.frames = frames;
+        }
+
+        public boolean isProbeFfmpeg() {
+            return probeFfmpeg;
+        }
+
+        public void setProbeFfmpeg(boolean probeFfmpeg) {
+            this.probeFfmpeg = probeFfmpeg;
+        }
+
+        public long getFfmpegProbeTimeoutSeconds() {
+            return ffmpegProbeTimeoutSeconds;
+        }
+
+        public void setFfmpegProbeTimeoutSeconds(long ffmpegProbeTimeoutSeconds) {
+            this.ffmpegProbeTimeoutSeconds = ffmpegProbeTimeoutSeconds;
+        }
+
+        public boolean isExitWhenDone() {
+            return exitWhenDone;
+        }
+
+        public void setExitWhenDone(boolean exitWhenDone) {
+            this.exitWhenDone = exitWhenDone;
+        }
+    }
+
+    public static class Storage {
+        private boolean deleteFramesAfterEncode = true;
+        private long maxTotalMegabytes = 0;
+        private long maxAgeHours = 0;
+        private long cleanupIntervalSeconds = 300;
+        private int batchSize = 200;
+
+        public boolean isDeleteFramesAfterEncode() {
+            return deleteFramesAfterEncode;
+        }
+
+        public void setDeleteFramesAfterEncode(boolean deleteFramesAfterEncode) {
+            this.deleteFramesAfterEncode = deleteFramesAfterEncode;
+        }
+
+        public long getMaxTotalMegabytes() {
+            return maxTotalMegabytes;
+        }
+
+        public void setMaxTotalMegabytes(long maxTotalMegabytes) {
+            this.maxTotalMegabytes = maxTotalMegabytes;
+        }
+
+        public long getMaxAgeHours() {
+            return maxAgeHours;
+        }
+
+        public void setMaxAgeHours(long maxAgeHours) {
+            this.maxAgeHours = maxAgeHours;
+        }
+
+        public long getCleanupIntervalSeconds() {
+            return cleanupIntervalSeconds;
+        }
+
+        public void setCleanupIntervalSeconds(long cleanupIntervalSeconds) {
+            this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Adaptive {
+        private boolean enabled = true;
+        private int maxConcurrentJobs = 0;
+        private long targetJobSeconds = 0;
+        private int minWidth = 640;
+        private int minHeight = 360;
+        private int minDuration = 10;
+        private String fastPreset = "veryfast";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+
+        public long getTargetJobSeconds() {
+            return targetJobSeconds;
+        }
+
+        public void setTargetJobSeconds(long targetJobSeconds) {
+            this.targetJobSeconds = targetJobSeconds;
+        }
+
+        public int getMinWidth() {
+            return minWidth;
+        }
+
+        public void setMinWidth(int minWidth) {
+            this.minWidth = minWidth;
+        }
+
+        public int getMinHeight() {
+            return minHeight;
+        }
+
+        public void setMinHeight(int minHeight) {
+            this.minHeight = minHeight;
+        }
+
+        public int getMinDuration() {
+            return minDuration;
+        }
+
+        public void setMinDuration(int minDuration) {
+            this.minDuration = minDuration;
+        }
+
+        public String getFastPreset() {
+            return fastPreset;
+        }
+
+        public void setFastPreset(String fastPreset) {
+            this.fastPreset = fastPreset;
+        }
+    }
+
+    public static class Outputs {
+        private List<Integer> renditionHeights = new ArrayList<>(List.of(720));
+        private boolean poster = true;
+        private int posterWidth = 1280;
+        private double posterQuality = 0.85;
+        private boolean preview = true;
+        private String previewFormat = "gif";
+        private int previewWidth = 480;
+        private int previewSeconds = 5;
+        private boolean recording = false;
+
+        public List<Integer> getRenditionHeights() {
+            return renditionHeights;
+        }
+
+        public void setRenditionHeights(List<Integer> renditionHeights) {
+            this.renditionHeights = renditionHeights;
+        }
+
+        public boolean isPoster() {
+            return poster;
+        }
+
+        public void setPoster(boolean poster) {
+            this.poster = poster;
+        }
+
+        public int getPosterWidth() {
+            return posterWidth;
+        }
+
+        public void setPosterWidth(int posterWidth) {
+            this.posterWidth = posterWidth;
+        }
+
+        public double getPosterQuality() {
+            return posterQuality;
+        }
+
+        public void setPosterQuality(double posterQuality) {
+            this.posterQuality = posterQuality;
+        }
+
+        public boolean isPreview() {
+            return preview;
+        }
+
+        public void setPreview(boolean preview) {
+            this.preview = preview;
+        }
+
+        public String getPreviewFormat() {
+            return previewFormat;
+        }
+
+        public void setPreviewFormat(String previewFormat) {
+            this.previewFormat = previewFormat;
+        }
+
+        public int getPreviewWidth() {
+            return previewWidth;
+        }
+
+        public void setPreviewWidth(int previewWidth) {
+            this.previewWidth = previewWidth;
+        }
+
+        public int getPreviewSeconds() {
+            return previewSeconds;
+        }
+
+        public void setPreviewSeconds(int previewSeconds) {
+            this.previewSeconds = previewSeconds;
+        }
+
+        public boolean isRecording() {
+            return recording;
+        }
+
+        public void setRecording(boolean recording) {
+            this.recording = recording;
+        }
+    }
+
+    public static class Scheduler {
+        private int workers = 0;
+        private int queueCapacity = 1000;
+        private int tenantConcurrency = 0;
+        private Map<String, Integer> tenantCaps = new HashMap<>();
+        private Map<String, Double> tenantWeights = new HashMap<>();
+        private long batchAgingSeconds = 120;
+        private long deadlineSlackSeconds = 30;
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getTenantConcurrency() {
+            return tenantConcurrency;
+        }
+
+        public void setTenantConcurrency(int tenantConcurrency) {
+            this.tenantConcurrency = tenantConcurrency;
+        }
+
+        public Map<String, Integer> getTenantCaps() {
+            return tenantCaps;
+        }
+
+        public void setTenantCaps(Map<String, Integer> tenantCaps) {
+            this.tenantCaps = tenantCaps;
+        }
+
+        public Map<String, Double> getTenantWeights() {
+            return tenantWeights;
+        }
+
+        public void setTenantWeights(Map<String, Double> tenantWeights) {
+            this.tenantWeights = tenantWeights;
+        }
+
+        public long getBatchAgingSeconds() {
+            return batchAgingSeconds;
+        }
+
+        public void setBatchAgingSeconds(long batchAgingSeconds) {
+            this.batchAgingSeconds = batchAgingSeconds;
+        }
+
+        public long getDeadlineSlackSeconds() {
+            return deadlineSlackSeconds;
+        }
+
+        public void setDeadlineSlackSeconds(long deadlineSlackSeconds) {
+            this.deadlineSlackSeconds = deadlineSlackSeconds;
+        }
+    }
+
+    public static class Encoding {
+        private String backend = "auto";
+        private boolean probeOnStartup = true;
+        private boolean benchmarkOnStartup = false;
+        private int benchmarkFrames = 30;
+        private int benchmarkWidth = 640;
+        private int benchmarkHeight = 360;
+        private float mjpegQuality = 0.85f;
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public boolean isProbeOnStartup() {
+            return probeOnStartup;
+        }
+
+        public void setProbeOnStartup(boolean probeOnStartup) {
+            this.probeOnStartup = probeOnStartup;
+        }
+
+        public boolean isBenchmarkOnStartup() {
+            return benchmarkOnStartup;
+        }
+
+        public void setBenchmarkOnStartup(boolean benchmarkOnStartup) {
+            this.benchmarkOnStartup = benchmarkOnStartup;
+        }
+
+        public int getBenchmarkFrames() {
+            return benchmarkFrames;
+        }
+
+        public void setBenchmarkFrames(int benchmarkFrames) {
+            this.benchmarkFrames = benchmarkFrames;
+        }
+
+        public int getBenchmarkWidth() {
+            return benchmarkWidth;
+        }
+
+        public void setBenchmarkWidth(int benchmarkWidth) {
+            this.benchmarkWidth = benchmarkWidth;
+        }
+
+        public int getBenchmarkHeight() {
+            return benchmarkHeight;
+        }
+
+        public void setBenchmarkHeight(int benchmarkHeight) {
+            this.benchmarkHeight = benchmarkHeight;
+        }
+
+        public float getMjpegQuality() {
+            return mjpegQuality;
+        }
+
+        public void setMjpegQuality(float mjpegQuality) {
+            this.mjpegQuality = mjpegQuality;
+        }
+    }
+
+    public static class Tracing {
+        private boolean logSpans = false;
+        private int retainedSpans = 500;
+
+        public boolean isLogSpans() {
+            return logSpans;
+        }
+
+        public void setLogSpans(boolean logSpans) {
+            this.logSpans = logSpans;
+        }
+
+        public int getRetainedSpans() {
+            return retainedSpans;
+        }
+
+        public void setRetainedSpans(int retainedSpans) {
+            this.retainedSpans = retainedSpans;
+        }
+    }
+
+    public static class Reactive {
+        private long streamWindowBytes = 8L * 1024 * 1024;
+        private int chunkBytes = 64 * 1024;
+        private long stallSeconds = 30;
+        private long maxThrottleSeconds = 300;
+        private long retentionSeconds = 300;
+
+        public long getStreamWindowBytes() {
+            return streamWindowBytes;
+        }
+
+        public void setStreamWindowBytes(long streamWindowBytes) {
+            this.streamWindowBytes = streamWindowBytes;
+        }
+
+        public int getChunkBytes() {
+            return chunkBytes;
+        }
+
+        public void setChunkBytes(int chunkBytes) {
+            this.chunkBytes = chunkBytes;
+        }
+
+        public long getStallSeconds() {
+            return stallSeconds;
+        }
+
+        public void setStallSeconds(long stallSeconds) {
+            this.stallSeconds = stallSeconds;
+        }
+
+        public long getMaxThrottleSeconds() {
+            return maxThrottleSeconds;
+        }
+
+        public void setMaxThrottleSeconds(long maxThrottleSeconds) {
+            this.maxThrottleSeconds = maxThrottleSeconds;
+        }
+
+        public long getRetentionSeconds() {
+            return retentionSeconds;
+        }
+
+        public void setRetentionSeconds(long retentionSeconds) {
+            this.retentionSeconds = retentionSeconds;
+        }
     }
 }
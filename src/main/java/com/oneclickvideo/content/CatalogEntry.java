@@ -0,0 +1,12 @@
+package com.oneclickvideo.content;
+
+/**
+ * One selectable piece of video content: a title, the story narrated on the frames,
+ * and an optional channel name that overrides the configured default.
+ */
+public record CatalogEntry(String id, String theme, String title, String story, String channelName, double weight) {
+
+    public String channelNameOr(String defaultChannelName) {
+        return channelName != null ? channelName : defaultChannelName;
+    }
+}
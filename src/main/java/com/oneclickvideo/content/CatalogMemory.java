@@ -0,0 +1,21 @@
+package com.oneclickvideo.content;
+
+/**
+ * Heap layout constants (64-bit JVM, compressed oops) behind the catalog's
+ * footprint estimate.
+ */
+final class CatalogMemory {
+
+    private static final int ARRAY_HEADER = 16;
+
+    private CatalogMemory() {
+    }
+
+    static long arrayBytes(long length, int elementSize) {
+        return align(ARRAY_HEADER + length * elementSize);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
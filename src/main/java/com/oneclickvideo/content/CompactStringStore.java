@@ -0,0 +1,79 @@
+package com.oneclickvideo.content;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interned strings packed into one UTF-8 byte array and addressed by an offset index.
+ *
+ * Each distinct string is stored once, so repeated themes or channel names cost
+ * a single int reference per entry instead of a String object and its backing array.
+ */
+final class CompactStringStore {
+
+    private final byte[] bytes;
+    private final int[] offsets;
+
+    private CompactStringStore(byte[] bytes, int[] offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    String get(int ref) {
+        int start = offsets[ref];
+        return new String(bytes, start, offsets[ref + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    boolean matches(int ref, byte[] utf8) {
+        int start = offsets[ref];
+        int end = offsets[ref + 1];
+        return Arrays.equals(bytes, start, end, utf8, 0, utf8.length);
+    }
+
+    long footprintBytes() {
+        return CatalogMemory.arrayBytes(bytes.length, 1) + CatalogMemory.arrayBytes(offsets.length, 4);
+    }
+
+    static final class Builder {
+
+        private final Map<String, Integer> refs = new HashMap<>();
+        private byte[] bytes = new byte[4096];
+        private int[] offsets = new int[256];
+        private int count;
+        private int length;
+
+        int intern(String value) {
+            Integer existing = refs.get(value);
+            if (existing != null) {
+                return existing;
+            }
+
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (length + utf8.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + utf8.length));
+            }
+            if (count + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            offsets[count] = length;
+            length += utf8.length;
+            offsets[count + 1] = length;
+
+            int ref = count++;
+            refs.put(value, ref);
+            return ref;
+        }
+
+        CompactStringStore build() {
+            return new CompactStringStore(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, count + 1));
+        }
+    }
+}
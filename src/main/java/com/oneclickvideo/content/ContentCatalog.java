@@ -0,0 +1,30 @@
+package com.oneclickvideo.content;
+
+import java.util.Optional;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of titles and stories for generated videos.
+ *
+ * Implementations must support constant-time random and weighted selection
+ * and lookup by id, so that a catalog of hundreds of thousands of entries
+ * costs no more per request than a handful.
+ */
+public interface ContentCatalog {
+
+    int size();
+
+    CatalogEntry get(int index);
+
+    Optional<CatalogEntry> findById(String id);
+
+    /**
+     * Picks an entry uniformly at random.
+     */
+    CatalogEntry random(RandomGenerator random);
+
+    /**
+     * Picks an entry with probability proportional to its weight.
+     */
+    CatalogEntry weighted(RandomGenerator random);
+}
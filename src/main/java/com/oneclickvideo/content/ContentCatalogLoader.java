@@ -0,0 +1,102 @@
+package com.oneclickvideo.content;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams a JSON content catalog into an {@link IndexedContentCatalog}.
+ *
+ * The file is either a top-level array of entries or an object with an
+ * {@code "entries"} array. Entries are read token by token with Jackson's
+ * streaming parser, so no tree or intermediate object list is ever built:
+ *
+ * <pre>
+ * [{"id": "mountain-trail", "theme": "mountain", "title": "...", "story": "...",
+ *   "channel": "Riding Roney", "weight": 2.0}]
+ * </pre>
+ */
+public final class ContentCatalogLoader {
+
+    public static final String DEFAULT_CATALOG = "/content-catalog.json";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ContentCatalogLoader() {
+    }
+
+    public static IndexedContentCatalog load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    public static IndexedContentCatalog loadDefault() throws IOException {
+        try (InputStream in = ContentCatalogLoader.class.getResourceAsStream(DEFAULT_CATALOG)) {
+            if (in == null) {
+                throw new IOException("Default content catalog " + DEFAULT_CATALOG + " is missing from the classpath.");
+            }
+            return load(in);
+        }
+    }
+
+    public static IndexedContentCatalog load(InputStream in) throws IOException {
+        IndexedContentCatalog.Builder builder = IndexedContentCatalog.builder();
+        try (JsonParser parser = JSON.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    token = parser.nextToken();
+                    if ("entries".equals(field) && token == JsonToken.START_ARRAY) {
+                        readEntries(parser, builder);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                readEntries(parser, builder);
+            } else {
+                throw new IOException("Content catalog must be a JSON array or an object with an \"entries\" array.");
+            }
+        }
+        return builder.build();
+    }
+
+    private static void readEntries(JsonParser parser, IndexedContentCatalog.Builder builder) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null;
+            String theme = null;
+            String title = null;
+            String story = null;
+            String channel = null;
+            double weight = 1.0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = parser.getValueAsString();
+                    case "theme" -> theme = parser.getValueAsString();
+                    case "title" -> title = parser.getValueAsString();
+                    case "story" -> story = parser.getValueAsString();
+                    case "channel" -> channel = parser.getValueAsString();
+                    case "weight" -> weight = parser.getValueAsDouble(1.0);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            try {
+                builder.add(id, theme, title, story, channel, weight);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid content catalog entry near " + parser.currentLocation() + ": " +
+                    e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.oneclickvideo.content;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.random.RandomGenerator;
+
+/**
+ * Column-oriented, immutable {@link ContentCatalog}.
+ *
+ * Entry fields are int references into a shared {@link CompactStringStore}, ids are
+ * resolved through an open-addressing hash table, and weighted picks use Vose's alias
+ * method, so every lookup is O(1) regardless of catalog size.
+ */
+public final class IndexedContentCatalog implements ContentCatalog {
+
+    private static final int NO_CHANNEL = -1;
+
+    private final CompactStringStore strings;
+    private final int[] ids;
+    private final int[] themes;
+    private final int[] titles;
+    private final int[] stories;
+    private final int[] channels;
+    private final double[] weights;
+    private final int[] idTable;
+    private final double[] aliasProbability;
+    private final int[] alias;
+
+    private IndexedContentCatalog(Builder builder) {
+        int size = builder.size;
+        this.strings = builder.strings.build();
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.themes = Arrays.copyOf(builder.themes, size);
+        this.titles = Arrays.copyOf(builder.titles, size);
+        this.stories = Arrays.copyOf(builder.stories, size);
+        this.channels = Arrays.copyOf(builder.channels, size);
+        this.weights = Arrays.copyOf(builder.weights, size);
+        this.idTable = buildIdTable();
+        this.aliasProbability = new double[size];
+        this.alias = new int[size];
+        buildAliasTable();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public CatalogEntry get(int index) {
+        int channel = channels[index];
+        return new CatalogEntry(
+            strings.get(ids[index]),
+            strings.get(themes[index]),
+            strings.get(titles[index]),
+            strings.get(stories[index]),
+            channel == NO_CHANNEL ? null : strings.get(channel),
+            weights[index]
+        );
+    }
+
+    @Override
+    public Optional<CatalogEntry> findById(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int mask = idTable.length - 1;
+        for (int slot = id.hashCode() & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int index = idTable[slot] - 1;
+            if (strings.matches(ids[index], key)) {
+                return Optional.of(get(index));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public CatalogEntry random(RandomGenerator random) {
+        return get(random.nextInt(size()));
+    }
+
+    @Override
+    public CatalogEntry weighted(RandomGenerator random) {
+        int column = random.nextInt(size());
+        return get(random.nextDouble() < aliasProbability[column] ? column : alias[column]);
+    }
+
+    /**
+     * Estimated heap retained by this catalog's arrays.
+     */
+    public long footprintBytes() {
+        int size = size();
+        return strings.footprintBytes()
+            + 5 * CatalogMemory.arrayBytes(size, 4)
+            + 2 * CatalogMemory.arrayBytes(size, 8)
+            + CatalogMemory.arrayBytes(idTable.length, 4)
+            + CatalogMemory.arrayBytes(size, 4);
+    }
+
+    private int[] buildIdTable() {
+        int capacity = Integer.highestOneBit(Math.max(2, ids.length * 2 - 1)) << 1;
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < ids.length; index++) {
+            String id = strings.get(ids[index]);
+            int slot = id.hashCode() & mask;
+            while (table[slot] != 0) {
+                if (ids[table[slot] - 1] == ids[index]) {
+                    throw new IllegalArgumentException("Duplicate catalog id: " + id);
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+        return table;
+    }
+
+    private void buildAliasTable() {
+        int size = size();
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            aliasProbability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            aliasProbability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            aliasProbability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    public static final class Builder {
+
+        private final CompactStringStore.Builder strings = new CompactStringStore.Builder();
+        private int[] ids = new int[64];
+        private int[] themes = new int[64];
+        private int[] titles = new int[64];
+        private int[] stories = new int[64];
+        private int[] channels = new int[64];
+        private double[] weights = new double[64];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(String id, String theme, String title, String story, String channelName, double weight) {
+            if (id == null || title == null || story == null) {
+                throw new IllegalArgumentException("Catalog entries require an id, title and story");
+            }
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Catalog entry " + id + " must have a positive weight");
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                themes = Arrays.copyOf(themes, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                stories = Arrays.copyOf(stories, capacity);
+                channels = Arrays.copyOf(channels, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+
+            ids[size] = strings.intern(id);
+            themes[size] = strings.intern(theme != null ? theme : "");
+            titles[size] = strings.intern(title);
+            stories[size] = strings.intern(story);
+            channels[size] = channelName != null ? strings.intern(channelName) : NO_CHANNEL;
+            weights[size] = weight;
+            size++;
+            return this;
+        }
+
+        public IndexedContentCatalog build() {
+            if (size == 0) {
+                throw new IllegalStateException("Content catalog is empty");
+            }
+            return new IndexedContentCatalog(this);
+        }
+    }
+}
@@ -1,28 +1,58 @@
 package com.oneclickvideo.controller;
 
 import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.encoding.EncoderRegistry;
+import com.oneclickvideo.scheduling.GenerationScheduler;
+import com.oneclickvideo.scheduling.JobSpec;
+import com.oneclickvideo.service.GenerationRequest;
+import com.oneclickvideo.service.GenerationResult;
 import com.oneclickvideo.service.VideoService;
+import com.oneclickvideo.tracing.JobTracer;
+import com.oneclickvideo.tracing.ResourceUsage;
+import com.oneclickvideo.tracing.SpanRecord;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Controller
 public class VideoController {
 
+    private final GenerationScheduler scheduler;
     private final VideoService videoService;
+    private final EncoderRegistry encoders;
+    private final JobTracer tracer;
+    private final Clock clock;
     private final OneClickVideoProperties properties;
 
-    public VideoController(VideoService videoService, OneClickVideoProperties properties) {
+    public VideoController(GenerationScheduler scheduler, VideoService videoService, EncoderRegistry encoders,
+                           JobTracer tracer, Clock clock, OneClickVideoProperties properties) {
+        this.scheduler = scheduler;
         this.videoService = videoService;
+        this.encoders = encoders;
+        this.tracer = tracer;
+        this.clock = clock;
         this.properties = properties;
     }
 
@@ -32,26 +62,125 @@ public class VideoController {
         return "index";
     }
 
+    /**
+     * Queues a job and answers once it is done. The request thread is released
+     * while the job waits and runs, so a queue full of jobs does not pin one
+     * container thread each, and on the reactive stack nothing blocks the event loop.
+     * The job is billed to the channel of the content it renders, so the seed of a
+     * random pick is fixed here, before queueing.
+     */
     @PostMapping("/create")
-    public ResponseEntity<?> createVideo() {
+    public CompletableFuture<ResponseEntity<?>> createVideo(
+        @RequestParam(name = "contentId", required = false) String contentId,
+        @RequestParam(name = "seed", required = false) Long seed,
+        @RequestParam(name = "priority", required = false) String priority,
+        @RequestParam(name = "deadlineSeconds", required = false) Long deadlineSeconds,
+        @RequestParam(name = "encoder", required = false) String encoder) {
+        CompletableFuture<GenerationResult> job;
         try {
             System.out.println("Creating new riding video...");
 
-            File videoFile = videoService.generateRidingVideo();
-            Resource resource = new FileSystemResource(videoFile);
+            encoders.resolve(encoder); // reject unknown encoders before queueing
+            GenerationRequest request = new GenerationRequest(
+                seed != null ? seed : ThreadLocalRandom.current().nextLong(), contentId, null, encoder);
+            JobSpec spec = JobSpec.forRequest(videoService.channelOf(request), priority, deadlineSeconds,
+                clock.instant(), videoService.costOf(request));
+            job = scheduler.submit(request, spec);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failure(e));
+        }
+        return job.handle((result, error) -> error == null ? created(result)
+            : failure(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+    }
 
-            return ResponseEntity.ok()
+    private static ResponseEntity<?> created(GenerationResult result) {
+        File videoFile = result.file();
+        ResponseEntity.BodyBuilder response = videoFile == null
+            ? ResponseEntity.status(204)
+            : ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
                 .header(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + videoFile.getName() + "\"")
-                .body(resource);
-        } catch (Exception e) {
-            System.err.println("Error creating video: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500)
+                    "attachment; filename=\"" + videoFile.getName() + "\"");
+        response
+            .header("X-Content-Id", result.contentId())
+            .header("X-Generation-Seed", Long.toString(result.seed()))
+            .header("X-Render-Settings", result.settings().width() + "x" + result.settings().height() + ", " +
+                result.settings().duration() + "s@" + result.settings().frameRate() + "fps, " +
+                result.settings().preset())
+            .header("X-Policy-Decisions", result.policyDecisions().isEmpty()
+                ? "none" : String.join("; ", result.policyDecisions()))
+            .header("X-Outputs", result.outputs().entrySet().stream()
+                .map(output -> output.getKey() + "=/outputs/" + output.getValue().getName())
+                .collect(Collectors.joining(", ")));
+        ResourceUsage usage = result.usage();
+        if (usage != null) {
+            response
+                .header("X-Trace-Id", usage.traceId())
+                .header("Server-Timing", usage.stageMillis().entrySet().stream()
+                    .map(stage -> stage.getKey() + ";dur=" + stage.getValue())
+                    .collect(Collectors.joining(", ")))
+                .header("X-Resource-Usage", String.format(Locale.ROOT,
+                    "render-cpu=%dms, encode-cpu=%dms, allocated=%dKiB, disk=%dKiB, " +
+                        "encoder-process-cpu=%dms, encoder-process-rss=%dKiB",
+                    usage.renderCpuMillis(), usage.encodeCpuMillis(), usage.allocatedBytes() / 1024,
+                    usage.diskBytesWritten() / 1024, usage.encoderProcessCpuMillis(),
+                    usage.encoderProcessPeakRssBytes() / 1024));
+        }
+        return videoFile == null ? response.build() : response.body(new FileSystemResource(videoFile));
+    }
+
+    private static ResponseEntity<?> failure(Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest()
                 .contentType(MediaType.TEXT_PLAIN)
-                .body("Video generation failed: " + e.getMessage());
+                .body(error.getMessage());
+        }
+        if (error instanceof RejectedExecutionException) {
+            return ResponseEntity.status(503)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(error.getMessage());
+        }
+        System.err.println("Error creating video: " + error.getMessage());
+        error.printStackTrace();
+        return ResponseEntity.status(500)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body("Video generation failed: " + error.getMessage());
+    }
+
+    @GetMapping("/outputs/{name:.+}")
+    public ResponseEntity<Resource> output(@PathVariable String name) {
+        Path outputDir = Path.of(properties.getVideo().getOutputDir()).toAbsolutePath().normalize();
+        Path file = outputDir.resolve(name).normalize();
+        if (!outputDir.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
         }
+
+        return ResponseEntity.ok()
+            .contentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+            .body(new FileSystemResource(file));
+    }
+
+    @GetMapping("/encoders")
+    @ResponseBody
+    public List<EncoderRegistry.Status> encoders() {
+        return encoders.status();
+    }
+
+    /**
+     * Benchmarks the backends on the registry's background thread; the request
+     * thread is released until the ranking is ready.
+     */
+    @PostMapping("/encoders/benchmark")
+    @ResponseBody
+    public CompletableFuture<List<EncoderRegistry.Status>> benchmarkEncoders() {
+        return encoders.benchmarkInBackground();
+    }
+
+    @GetMapping("/traces")
+    @ResponseBody
+    public List<SpanRecord> traces(@RequestParam(name = "traceId", required = false) String traceId) {
+        return tracer.spans(traceId);
     }
 
     @GetMapping("/health")
@@ -0,0 +1,136 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.frames.DeltaFrameWriter;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the exact frames into a frame-delta file instead of encoding a video,
+ * for debugging a render: far smaller and faster to write than a PNG per frame,
+ * lossless, and replayable into images or any other backend with
+ * {@link FrameReplay}. Identical frames are stored as repeat markers. With
+ * {@link #recording} the same file is written next to another backend's output.
+ */
+public class DeltaFrameEncoder implements VideoEncoder {
+
+    public static final String NAME = "delta-frames";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String extension() {
+        return "ocvf";
+    }
+
+    @Override
+    public boolean derivedOutputs() {
+        return false;
+    }
+
+    @Override
+    public boolean probe() {
+        return true;
+    }
+
+    @Override
+    public Session open(EncodeJob job, ProgressListener progress) throws IOException {
+        DeltaFrameWriter writer = DeltaFrameWriter.create(job.main(), job.width(), job.height(), job.frameRate());
+
+        return new Session() {
+            private boolean finished;
+
+            @Override
+            public void writeFrame(BufferedImage frame) throws IOException {
+                writer.write(frame);
+                progress.onProgress(writer.frames(), job.frameCount());
+            }
+
+            @Override
+            public void repeatFrame(BufferedImage frame) throws IOException {
+                writer.repeat();
+                progress.onProgress(writer.frames(), job.frameCount());
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.close();
+                finished = true;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    writer.close();
+                    if (!finished) {
+                        Files.deleteIfExists(job.main());
+                    }
+                } catch (IOException e) {
+                    System.err.println("Could not clean up " + job.main() + ": " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps {@code session} so that every frame is also recorded to {@code file},
+     * for debugging a render without giving up its video. The recording is
+     * complete once {@code finish} returns and removed if the encode is aborted.
+     */
+    public static Session recording(Session session, Path file, EncodeJob job) throws IOException {
+        DeltaFrameWriter writer;
+        try {
+            writer = DeltaFrameWriter.create(file, job.width(), job.height(), job.frameRate());
+        } catch (IOException | RuntimeException e) {
+            session.close();
+            throw e;
+        }
+
+        return new Session() {
+            private boolean finished;
+
+            @Override
+            public void writeFrame(BufferedImage frame) throws IOException {
+                writer.write(frame);
+                session.writeFrame(frame);
+            }
+
+            @Override
+            public void repeatFrame(BufferedImage frame) throws IOException {
+                writer.repeat();
+                session.repeatFrame(frame);
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.close();
+                session.finish();
+                finished = true;
+            }
+
+            @Override
+            public ProcessUsage processUsage() {
+                return session.processUsage();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    writer.close();
+                    if (!finished) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Could not clean up " + file + ": " + e.getMessage());
+                } finally {
+                    session.close();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.oneclickvideo.encoding;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * One encode: frame geometry and rate, a scratch directory the backend may use,
+ * the main output file, every file the encoder must produce (main first), and the
+ * FFmpeg output arguments that map the decoded frames to those files. Backends
+ * without {@link VideoEncoder#derivedOutputs()} only write {@code main}.
+ */
+public record EncodeJob(Path workDir, int width, int height, int frameCount, int frameRate, Path main,
+                        List<Path> outputs, List<String> ffmpegOutputArgs) {
+
+    public EncodeJob {
+        outputs = List.copyOf(outputs);
+        ffmpegOutputArgs = List.copyOf(ffmpegOutputArgs);
+    }
+}
@@ -0,0 +1,88 @@
+package com.oneclickvideo.encoding;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Encodes the same synthetic clip with each backend and ranks them by frames per
+ * second. Frames are drawn up front, so only encoding is timed.
+ */
+final class EncoderBenchmark {
+
+    private EncoderBenchmark() {
+    }
+
+    record Result(String encoder, double framesPerSecond, String error) {
+    }
+
+    static List<Result> run(List<VideoEncoder> encoders, int width, int height, int frameCount) throws IOException {
+        List<BufferedImage> frames = frames(width, height, Math.max(1, frameCount));
+        List<Result> results = new ArrayList<>();
+        Path workRoot = Files.createTempDirectory("encoder-benchmark");
+        try {
+            for (VideoEncoder encoder : encoders) {
+                results.add(measure(encoder, frames, workRoot.resolve(encoder.name())));
+            }
+        } finally {
+            deleteTree(workRoot);
+        }
+        results.sort(Comparator.comparingDouble(Result::framesPerSecond).reversed());
+        return results;
+    }
+
+    private static Result measure(VideoEncoder encoder, List<BufferedImage> frames, Path workDir) {
+        try {
+            Files.createDirectories(workDir);
+            BufferedImage first = frames.get(0);
+            Path main = workDir.resolve("benchmark." + (encoder.extension() != null ? encoder.extension() : "out"));
+            List<String> outputArgs = List.of("-c:v", "libx264", "-pix_fmt", "yuv420p", "-preset", "veryfast",
+                main.toString());
+            EncodeJob job = new EncodeJob(workDir, first.getWidth(), first.getHeight(), frames.size(), 1, main,
+                encoder.extension() != null ? List.of(main) : List.of(), outputArgs);
+
+            long started = System.nanoTime();
+            try (VideoEncoder.Session session = encoder.open(job, VideoEncoder.ProgressListener.NONE)) {
+                for (BufferedImage frame : frames) {
+                    session.writeFrame(frame);
+                }
+                session.finish();
+            }
+            double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+            return new Result(encoder.name(), frames.size() / seconds, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(encoder.name(), 0, e.getMessage());
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static List<BufferedImage> frames(int width, int height, int count) {
+        List<BufferedImage> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = frame.createGraphics();
+            g.setPaint(new GradientPaint(0, 0, new Color(135, 206, 235), width, height, new Color(70, 130, 180)));
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.WHITE);
+            g.fillRoundRect(i * width / count, height / 3, width / 8, height / 6, 20, 20);
+            g.dispose();
+            frames.add(frame);
+        }
+        return frames;
+    }
+}
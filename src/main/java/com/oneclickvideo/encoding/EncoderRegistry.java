@@ -0,0 +1,202 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Encoder Registry for One Click Video Generator
+ *
+ * Knows every {@link VideoEncoder} backend, which of them work on this host and,
+ * after a benchmark, how fast each one is. With {@code encoding.backend: auto}
+ * the default is the PNG-sequence FFmpeg backend, the long-standing one, unless
+ * a benchmark has ranked another available backend that writes the full output
+ * set (MP4 plus renditions and preview) faster; MJPEG, frame-delta recording and
+ * the null sink are only used when asked for by name, in configuration or per
+ * request. Benchmarks requested at runtime run on a background thread.
+ */
+@Component
+public class EncoderRegistry {
+
+    public static final String AUTO = "auto";
+
+    private final OneClickVideoProperties.Encoding config;
+    private final Map<String, VideoEncoder> encoders = new LinkedHashMap<>();
+    private final Map<String, Boolean> available = new ConcurrentHashMap<>();
+    private final Map<String, Double> framesPerSecond = new ConcurrentHashMap<>();
+    private final ExecutorService benchmarkExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "encoder-benchmark");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object benchmarkLock = new Object();
+    private CompletableFuture<List<Status>> pendingBenchmark;
+    private volatile VideoEncoder defaultEncoder;
+
+    @Autowired
+    public EncoderRegistry(OneClickVideoProperties properties) {
+        this(properties.getEncoding(), List.of(
+            new RawPipeFFmpegEncoder(properties.getVideo()),
+            new PngSequenceFFmpegEncoder(properties.getVideo()),
+            new MjpegAviEncoder(properties.getEncoding().getMjpegQuality()),
+            new DeltaFrameEncoder(),
+            new NullEncoder()
+        ));
+    }
+
+    /**
+     * Until a benchmark ranks the backends, {@code auto} resolves to the
+     * PNG-sequence FFmpeg backend, or the first available full-output backend
+     * if that one failed its probe.
+     */
+    EncoderRegistry(OneClickVideoProperties.Encoding config, List<VideoEncoder> backends) {
+        this.config = config;
+        for (VideoEncoder encoder : backends) {
+            encoders.put(encoder.name(), encoder);
+        }
+        this.defaultEncoder = configuredDefault();
+    }
+
+    @PostConstruct
+    public void probe() {
+        if (!config.isProbeOnStartup()) {
+            return;
+        }
+        for (VideoEncoder encoder : encoders.values()) {
+            boolean works = encoder.probe();
+            available.put(encoder.name(), works);
+            System.out.println("Encoder " + encoder.name() + ": " + (works ? "available" : "unavailable"));
+        }
+        if (config.isBenchmarkOnStartup()) {
+            benchmark();
+        }
+        defaultEncoder = configuredDefault();
+        System.out.println("Default encoder: " + defaultEncoder.name());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        benchmarkExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts {@link #benchmark()} on the background thread, or joins the one
+     * already running, so callers never tie up a request thread with it.
+     */
+    public CompletableFuture<List<Status>> benchmarkInBackground() {
+        synchronized (benchmarkLock) {
+            if (pendingBenchmark == null || pendingBenchmark.isDone()) {
+                pendingBenchmark = CompletableFuture.supplyAsync(this::benchmark, benchmarkExecutor);
+            }
+            return pendingBenchmark;
+        }
+    }
+
+    /**
+     * Runs the self-benchmark over every backend not known to be unavailable,
+     * records the results for {@code auto} selection and returns them fastest first.
+     */
+    public synchronized List<Status> benchmark() {
+        List<VideoEncoder> candidates = new ArrayList<>();
+        for (VideoEncoder encoder : encoders.values()) {
+            if (!Boolean.FALSE.equals(available.get(encoder.name()))) {
+                candidates.add(encoder);
+            }
+        }
+        try {
+            for (EncoderBenchmark.Result result : EncoderBenchmark.run(candidates, config.getBenchmarkWidth(),
+                config.getBenchmarkHeight(), config.getBenchmarkFrames())) {
+                if (result.error() != null) {
+                    available.put(result.encoder(), false);
+                    System.out.println("Encoder benchmark " + result.encoder() + " failed: " + result.error());
+                } else {
+                    framesPerSecond.put(result.encoder(), result.framesPerSecond());
+                    System.out.printf(Locale.ROOT, "Encoder benchmark %s: %.1f fps%n", result.encoder(),
+                        result.framesPerSecond());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Encoder benchmark failed: " + e.getMessage());
+        }
+        defaultEncoder = configuredDefault();
+        List<Status> ranked = new ArrayList<>(status());
+        ranked.sort(Comparator.comparingDouble((Status status) -> status.framesPerSecond() != null
+            ? status.framesPerSecond() : -1).reversed());
+        return ranked;
+    }
+
+    /**
+     * Returns the named backend, or the default for {@code null}, blank or
+     * {@code auto}.
+     *
+     * @throws IllegalArgumentException if the backend is unknown or did not pass its probe
+     */
+    public VideoEncoder resolve(String name) {
+        if (name == null || name.isBlank() || AUTO.equalsIgnoreCase(name.trim())) {
+            return defaultEncoder;
+        }
+        VideoEncoder encoder = encoders.get(name.trim().toLowerCase(Locale.ROOT));
+        if (encoder == null) {
+            throw new IllegalArgumentException("Unknown encoder: " + name + " (expected one of " +
+                String.join(", ", encoders.keySet()) + ")");
+        }
+        if (Boolean.FALSE.equals(available.get(encoder.name()))) {
+            throw new IllegalArgumentException("Encoder " + encoder.name() + " is not available on this host");
+        }
+        return encoder;
+    }
+
+    public List<Status> status() {
+        List<Status> statuses = new ArrayList<>();
+        for (VideoEncoder encoder : encoders.values()) {
+            Boolean works = available.get(encoder.name());
+            statuses.add(new Status(encoder.name(), works == null ? "unprobed" : works ? "available" : "unavailable",
+                framesPerSecond.get(encoder.name()), encoder == defaultEncoder));
+        }
+        return statuses;
+    }
+
+    private VideoEncoder configuredDefault() {
+        String configured = config.getBackend();
+        if (configured != null && !configured.isBlank() && !AUTO.equalsIgnoreCase(configured.trim())) {
+            VideoEncoder encoder = encoders.get(configured.trim().toLowerCase(Locale.ROOT));
+            if (encoder == null) {
+                throw new IllegalStateException("Unknown one-click-video.encoding.backend: " + configured);
+            }
+            return encoder;
+        }
+
+        VideoEncoder png = encoders.get(PngSequenceFFmpegEncoder.NAME);
+        VideoEncoder best = png != null && Boolean.TRUE.equals(available.get(png.name())) ? png : null;
+        for (VideoEncoder encoder : encoders.values()) {
+            if (!encoder.derivedOutputs() || !Boolean.TRUE.equals(available.get(encoder.name()))) {
+                continue;
+            }
+            // Only a measured speed displaces the current pick; unbenchmarked backends never do.
+            Double fps = framesPerSecond.get(encoder.name());
+            if (best == null || fps != null && fps > framesPerSecond.getOrDefault(best.name(), 0.0)) {
+                best = encoder;
+            }
+        }
+        // Without a working FFmpeg, keep the PNG backend so requests fail with its
+        // "FFmpeg is required" message rather than silently switching container.
+        return best != null ? best : png;
+    }
+
+    public record Status(String name, String availability, Double framesPerSecond, boolean isDefault) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asks the configured FFmpeg binary which version and components it was built with.
+ */
+public final class FFmpegProbe {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private FFmpegProbe() {
+    }
+
+    /**
+     * The first line of {@code ffmpeg -version}, or null when FFmpeg is missing,
+     * fails or does not answer within {@code timeoutSeconds}.
+     */
+    public static String version(OneClickVideoProperties.Video videoProps, long timeoutSeconds) {
+        String output = run(videoProps, "-version", timeoutSeconds);
+        if (output == null) {
+            return null;
+        }
+        String[] lines = output.split("\\R", 2);
+        return lines[0].isEmpty() ? null : lines[0];
+    }
+
+    /**
+     * Whether FFmpeg can read frames through {@code demuxer} and write the H.264
+     * outputs every FFmpeg backend produces; builds without libx264 exist.
+     */
+    static boolean canEncodeH264(OneClickVideoProperties.Video videoProps, String demuxer) {
+        return supports(videoProps, "-demuxers", demuxer) && supports(videoProps, "-encoders", "libx264");
+    }
+
+    /**
+     * Runs {@code ffmpeg -hide_banner <listing>} (for example {@code -demuxers}) and
+     * reports whether {@code component} appears as a name in the listing.
+     */
+    static boolean supports(OneClickVideoProperties.Video videoProps, String listing, String component) {
+        String output = run(videoProps, listing, TIMEOUT_SECONDS);
+        if (output == null) {
+            return false;
+        }
+        for (String line : output.split("\\R")) {
+            for (String token : line.trim().split("\\s+")) {
+                for (String name : token.split(",")) {
+                    if (name.equals(component)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs {@code ffmpeg -hide_banner <option>} and returns what it printed, or null
+     * when it could not start, exited non-zero or timed out. The output goes to a
+     * file, so a hung FFmpeg is bounded by the timeout.
+     */
+    private static String run(OneClickVideoProperties.Video videoProps, String option, long timeoutSeconds) {
+        ProcessBuilder pb = new ProcessBuilder(videoProps.getFfmpegCommand(), "-hide_banner", option);
+        pb.redirectErrorStream(true);
+        Path outputFile = null;
+        try {
+            outputFile = Files.createTempFile("ffmpeg-probe", ".txt");
+            pb.redirectOutput(outputFile.toFile());
+            Process process = pb.start();
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            if (process.exitValue() != 0) {
+                return null;
+            }
+            return Files.readString(outputFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (outputFile != null) {
+                try {
+                    Files.deleteIfExists(outputFile);
+                } catch (IOException e) {
+                    // a leftover temp file is harmless
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.oneclickvideo.encoding;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A running FFmpeg child process. Its combined output is echoed and kept for error
+ * messages by a background reader, which also samples the process CPU time (the
+ * last sample before exit is the best available total once the process is gone)
+ * and, where {@code /proc} exists, its peak resident set size.
+ */
+final class FFmpegProcess implements AutoCloseable {
+
+    private static final long CPU_SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Process process;
+    private final Thread reader;
+    private final StringBuilder output = new StringBuilder();
+    private volatile Duration cpu = Duration.ZERO;
+    private volatile long peakRssBytes;
+
+    private FFmpegProcess(Process process) {
+        this.process = process;
+        this.reader = new Thread(this::drain, "ffmpeg-output-" + process.pid());
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    static FFmpegProcess start(List<String> command, boolean pipeInput) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        if (!pipeInput) {
+            pb.redirectInput(ProcessBuilder.Redirect.from(nullDevice()));
+        }
+        try {
+            return new FFmpegProcess(pb.start());
+        } catch (IOException e) {
+            throw new IOException(
+                "FFmpeg is required to generate MP4 output. Configure one-click-video.video.ffmpeg-command " +
+                    "or install ffmpeg on the server PATH.",
+                e
+            );
+        }
+    }
+
+    OutputStream stdin() {
+        return process.getOutputStream();
+    }
+
+    /**
+     * Waits for FFmpeg to exit and checks that it succeeded and wrote every output.
+     */
+    void await(long timeoutSeconds, List<Path> outputs) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        boolean finished;
+        try {
+            reader.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            finished = process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("Interrupted while waiting for FFmpeg to finish.", e);
+        }
+
+        if (!finished) {
+            process.destroyForcibly();
+            throw new IOException("FFmpeg timed out after " + timeoutSeconds + " seconds.");
+        }
+
+        if (process.exitValue() != 0) {
+            throw new IOException("FFmpeg failed with exit code " + process.exitValue() + "." +
+                System.lineSeparator() + output());
+        }
+
+        for (Path file : outputs) {
+            if (!Files.exists(file) || Files.size(file) == 0) {
+                throw new IOException("FFmpeg reported success but " + file.getFileName() + " was not created.");
+            }
+        }
+        System.out.println("FFmpeg CPU time: " + cpu.toMillis() + " ms for " + outputs.size() + " encoded streams");
+    }
+
+    ProcessUsage usage() {
+        return new ProcessUsage(cpu, peakRssBytes);
+    }
+
+    /**
+     * FFmpeg's output so far, for error messages when a pipe write fails.
+     */
+    String output() {
+        synchronized (output) {
+            return output.toString();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+    }
+
+    private void drain() {
+        long lastSample = 0;
+        try (BufferedReader in = new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
+        )) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                synchronized (output) {
+                    output.append(line).append(System.lineSeparator());
+                }
+                System.out.println("FFmpeg: " + line);
+                if (System.nanoTime() - lastSample > CPU_SAMPLE_INTERVAL_NANOS) {
+                    sample();
+                    lastSample = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            // The process was destroyed; await() reports the failure.
+        }
+        sample();
+    }
+
+    /**
+     * ProcessHandle.Info has no memory figures, so RSS comes from the kernel's
+     * high-water mark in {@code /proc/<pid>/status} while the process is alive.
+     */
+    private void sample() {
+        cpu = process.info().totalCpuDuration().orElse(cpu);
+        Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmHWM:") || line.startsWith("VmRSS:")) {
+                    String[] fields = line.trim().split("\\s+");
+                    peakRssBytes = Math.max(peakRssBytes, Long.parseLong(fields[1]) * 1024);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process already exited; keep the last sample.
+        }
+    }
+
+    private static File nullDevice() {
+        return new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null");
+    }
+}
@@ -0,0 +1,120 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.frames.DeltaFrameReader;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Plays a frame-delta recording back, either as PNG files or through an encoder
+ * backend. From the command line:
+ *
+ * <pre>
+ * java -cp target/one-click-video-generator-1.0.0.jar -Dloader.main=com.oneclickvideo.encoding.FrameReplay \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher clip.ocvf png clip_frames/
+ * ... clip.ocvf raw-ffmpeg clip.mp4
+ * </pre>
+ */
+public final class FrameReplay {
+
+    private FrameReplay() {
+    }
+
+    /**
+     * Feeds every recorded frame to {@code session} in order, passing repeats on
+     * as {@link VideoEncoder.Session#repeatFrame}, and returns the number of frames.
+     * Does not finish the session.
+     */
+    public static int replay(DeltaFrameReader reader, VideoEncoder.Session session) throws IOException {
+        BufferedImage frame = new BufferedImage(reader.width(), reader.height(), BufferedImage.TYPE_INT_RGB);
+        int frames = 0;
+        while (reader.readInto(frame)) {
+            if (reader.repeated() && frames > 0) {
+                session.repeatFrame(frame);
+            } else {
+                session.writeFrame(frame);
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Writes every recorded frame to {@code dir} as {@code frame_000.png},
+     * {@code frame_001.png}, ..., as the PNG-sequence backend names them.
+     */
+    public static int toPng(DeltaFrameReader reader, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        BufferedImage frame = new BufferedImage(reader.width(), reader.height(), BufferedImage.TYPE_INT_RGB);
+        int frames = 0;
+        while (reader.readInto(frame)) {
+            ImageIO.write(frame, "PNG", dir.resolve(String.format("frame_%03d.png", frames)).toFile());
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Encodes a recording with the named backend and the default configuration.
+     */
+    public static void encode(Path recording, String backend, Path output) throws IOException {
+        encode(recording, backend, output, new OneClickVideoProperties());
+    }
+
+    /**
+     * Encodes a recording with the named backend. The FFmpeg backends get the same
+     * H.264 arguments as a job's main video, at the configured preset. The frame
+     * count comes from the records on disk, so a recording cut short by a crash
+     * replays up to its last complete frame.
+     */
+    public static void encode(Path recording, String backend, Path output, OneClickVideoProperties properties)
+        throws IOException {
+        VideoEncoder encoder = new EncoderRegistry(properties).resolve(backend);
+        int frameCount = DeltaFrameReader.countFrames(recording);
+        if (frameCount == 0) {
+            throw new IOException("No complete frames in " + recording);
+        }
+        Path workDir = Files.createTempDirectory("frame-replay");
+        try (DeltaFrameReader reader = DeltaFrameReader.open(recording)) {
+            int frameRate = Math.max(1, reader.frameRate());
+            List<Path> outputs = encoder.extension() != null ? List.of(output) : List.of();
+            EncodeJob job = new EncodeJob(workDir, reader.width(), reader.height(), frameCount, frameRate, output,
+                outputs, H264OutputArgs.of(output, properties.getVideo().getPreset()));
+            try (VideoEncoder.Session session = encoder.open(job, VideoEncoder.ProgressListener.NONE)) {
+                replay(reader, session);
+                session.finish();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: FrameReplay <recording.ocvf> png <dir>");
+            System.err.println("       FrameReplay <recording.ocvf> <encoder> <output>");
+            System.exit(2);
+        }
+        Path recording = Path.of(args[0]);
+        Path target = Path.of(args[2]);
+        if ("png".equals(args[1])) {
+            try (DeltaFrameReader reader = DeltaFrameReader.open(recording)) {
+                System.out.println("Wrote " + toPng(reader, target) + " frames to " + target);
+            }
+        } else {
+            encode(recording, args[1], target);
+            System.out.println("Encoded " + recording + " with " + args[1] + " to " + target);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.oneclickvideo.encoding;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FFmpeg arguments for one H.264 output, shared by every video a job writes
+ * and by tools that re-encode frames outside a job.
+ */
+public final class H264OutputArgs {
+
+    private H264OutputArgs() {
+    }
+
+    /**
+     * The arguments that encode FFmpeg's only input stream to {@code output}.
+     */
+    public static List<String> of(Path output, String preset) {
+        List<String> command = new ArrayList<>();
+        add(command, null, preset, false, output);
+        return command;
+    }
+
+    /**
+     * Appends an H.264 output of the filter graph stream {@code label} (or of the
+     * only input when null) to {@code command}. With {@code fragmented} the file is
+     * written as fragmented MP4, which is playable and only appended to at every
+     * point, so it can be streamed while FFmpeg writes it.
+     */
+    public static void add(List<String> command, String label, String preset, boolean fragmented, Path output) {
+        if (label != null) {
+            command.add("-map");
+            command.add(label);
+        }
+        command.addAll(List.of(
+            "-c:v", "libx264",
+            "-pix_fmt", "yuv420p",
+            "-crf", "23",
+            "-preset", preset
+        ));
+        if (fragmented) {
+            command.addAll(List.of("-movflags", "+frag_keyframe+empty_moov+default_base_moof"));
+        }
+        command.add(output.toString());
+    }
+}
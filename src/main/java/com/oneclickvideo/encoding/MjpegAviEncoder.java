@@ -0,0 +1,207 @@
+package com.oneclickvideo.encoding;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pure-Java Motion-JPEG encoder writing an AVI file, for hosts without FFmpeg. Each
+ * frame is an independent JPEG, so files are larger than H.264 and there are no
+ * derived renditions or preview, but nothing outside the JVM is needed.
+ */
+public class MjpegAviEncoder implements VideoEncoder {
+
+    public static final String NAME = "mjpeg";
+
+    static final int HEADER_BYTES = 224;
+    private static final int MOVI_OFFSET = 220;
+    private static final int KEYFRAME = 0x10;
+    private static final int HAS_INDEX = 0x10;
+
+    private final float quality;
+
+    public MjpegAviEncoder(float quality) {
+        this.quality = quality;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String extension() {
+        return "avi";
+    }
+
+    @Override
+    public boolean derivedOutputs() {
+        return false;
+    }
+
+    @Override
+    public boolean probe() {
+        return ImageIO.getImageWritersByFormatName("jpeg").hasNext();
+    }
+
+    @Override
+    public Session open(EncodeJob job, ProgressListener progress) throws IOException {
+        FileChannel channel = FileChannel.open(job.main(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        channel.position(HEADER_BYTES);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        return new Session() {
+            private final ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+            private ByteBuffer index = ByteBuffer.allocate(16 * Math.max(1, job.frameCount()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+            private int frames;
+            private int largestFrame;
+            private boolean finished;
+
+            @Override
+            public void writeFrame(BufferedImage frame) throws IOException {
+                jpeg.reset();
+                try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(jpeg)) {
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(frame, null, null), param);
+                }
+                writeChunk();
+            }
+
+            /**
+             * Identical frames are stored as another chunk holding the same JPEG.
+             */
+            @Override
+            public void repeatFrame(BufferedImage frame) throws IOException {
+                writeChunk();
+            }
+
+            private void writeChunk() throws IOException {
+                int size = jpeg.size();
+                int padded = size + (size & 1);
+                long chunkStart = channel.position();
+
+                ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                header.put(fourcc("00dc")).putInt(size).flip();
+                ByteBuffer data = ByteBuffer.wrap(jpeg.toByteArray(), 0, size);
+                ByteBuffer pad = ByteBuffer.allocate(padded - size);
+                ByteBuffer[] chunk = {header, data, pad};
+                while (data.hasRemaining() || header.hasRemaining() || pad.hasRemaining()) {
+                    channel.write(chunk);
+                }
+
+                if (!index.hasRemaining()) {
+                    index = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN).put(index.flip());
+                }
+                index.put(fourcc("00dc")).putInt(KEYFRAME).putInt((int) (chunkStart - MOVI_OFFSET)).putInt(size);
+                largestFrame = Math.max(largestFrame, size);
+                progress.onProgress(++frames, job.frameCount());
+            }
+
+            @Override
+            public void finish() throws IOException {
+                long moviEnd = channel.position();
+                ByteBuffer indexHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                indexHeader.put(fourcc("idx1")).putInt(index.position()).flip();
+                index.flip();
+                while (indexHeader.hasRemaining() || index.hasRemaining()) {
+                    channel.write(new ByteBuffer[] {indexHeader, index});
+                }
+                long fileEnd = channel.position();
+
+                ByteBuffer header = headers(job, frames, largestFrame, (int) (fileEnd - 8),
+                    (int) (moviEnd - MOVI_OFFSET));
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.close();
+                writer.dispose();
+                finished = true;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    channel.close();
+                    if (!finished) {
+                        Files.deleteIfExists(job.main());
+                    }
+                } catch (IOException e) {
+                    System.err.println("Could not clean up " + job.main() + ": " + e.getMessage());
+                }
+                writer.dispose();
+            }
+        };
+    }
+
+    /**
+     * RIFF/AVI headers up to and including the {@code movi} list header, exactly
+     * {@link #HEADER_BYTES} long.
+     */
+    private static ByteBuffer headers(EncodeJob job, int frames, int largestFrame, int riffSize, int moviSize) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(fourcc("RIFF")).putInt(riffSize).put(fourcc("AVI "));
+        b.put(fourcc("LIST")).putInt(192).put(fourcc("hdrl"));
+
+        b.put(fourcc("avih")).putInt(56)
+            .putInt(1_000_000 / Math.max(1, job.frameRate()))
+            .putInt(largestFrame * Math.max(1, job.frameRate()))
+            .putInt(0)
+            .putInt(HAS_INDEX)
+            .putInt(frames)
+            .putInt(0)
+            .putInt(1)
+            .putInt(largestFrame)
+            .putInt(job.width())
+            .putInt(job.height())
+            .putInt(0).putInt(0).putInt(0).putInt(0);
+
+        b.put(fourcc("LIST")).putInt(116).put(fourcc("strl"));
+        b.put(fourcc("strh")).putInt(56)
+            .put(fourcc("vids"))
+            .put(fourcc("MJPG"))
+            .putInt(0)
+            .putShort((short) 0).putShort((short) 0)
+            .putInt(0)
+            .putInt(1)
+            .putInt(Math.max(1, job.frameRate()))
+            .putInt(0)
+            .putInt(frames)
+            .putInt(largestFrame)
+            .putInt(-1)
+            .putInt(0)
+            .putShort((short) 0).putShort((short) 0)
+            .putShort((short) job.width()).putShort((short) job.height());
+        b.put(fourcc("strf")).putInt(40)
+            .putInt(40)
+            .putInt(job.width())
+            .putInt(job.height())
+            .putShort((short) 1)
+            .putShort((short) 24)
+            .put(fourcc("MJPG"))
+            .putInt(job.width() * job.height() * 3)
+            .putInt(0).putInt(0).putInt(0).putInt(0);
+
+        b.put(fourcc("LIST")).putInt(moviSize).put(fourcc("movi"));
+        return b.flip();
+    }
+
+    private static byte[] fourcc(String code) {
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+}
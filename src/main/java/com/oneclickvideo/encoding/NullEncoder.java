@@ -0,0 +1,57 @@
+package com.oneclickvideo.encoding;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Discards every frame. Selecting it measures rendering and frame handling alone,
+ * and it is the upper bound in the encoder benchmark.
+ */
+public class NullEncoder implements VideoEncoder {
+
+    public static final String NAME = "null";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String extension() {
+        return null;
+    }
+
+    @Override
+    public boolean derivedOutputs() {
+        return false;
+    }
+
+    @Override
+    public boolean probe() {
+        return true;
+    }
+
+    @Override
+    public Session open(EncodeJob job, ProgressListener progress) {
+        return new Session() {
+            private int written;
+
+            @Override
+            public void writeFrame(BufferedImage frame) {
+                progress.onProgress(++written, job.frameCount());
+            }
+
+            @Override
+            public void repeatFrame(BufferedImage frame) {
+                progress.onProgress(++written, job.frameCount());
+            }
+
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
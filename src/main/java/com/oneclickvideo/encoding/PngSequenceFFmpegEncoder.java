@@ -0,0 +1,112 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes every frame as a PNG into the job's work directory, then runs FFmpeg once
+ * over the image sequence. Slowest of the FFmpeg backends, but the frames stay on
+ * disk for inspection and FFmpeg only has to be present when the encode starts.
+ */
+public class PngSequenceFFmpegEncoder implements VideoEncoder {
+
+    public static final String NAME = "png-ffmpeg";
+
+    private final OneClickVideoProperties.Video videoProps;
+
+    public PngSequenceFFmpegEncoder(OneClickVideoProperties.Video videoProps) {
+        this.videoProps = videoProps;
+    }
+
+    /**
+     * FFmpeg arguments up to and including the image-sequence input.
+     */
+    public static List<String> inputArgs(String ffmpegCommand, Path framesDir, int frameRate) {
+        return new ArrayList<>(List.of(
+            ffmpegCommand,
+            "-y",
+            "-framerate", Integer.toString(frameRate),
+            "-i", framesDir.resolve("frame_%03d.png").toString()
+        ));
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String extension() {
+        return "mp4";
+    }
+
+    @Override
+    public boolean derivedOutputs() {
+        return true;
+    }
+
+    @Override
+    public boolean streamable() {
+        return true;
+    }
+
+    @Override
+    public boolean probe() {
+        return FFmpegProbe.canEncodeH264(videoProps, "image2");
+    }
+
+    @Override
+    public Session open(EncodeJob job, ProgressListener progress) {
+        return new Session() {
+            private int written;
+            private ProcessUsage usage = ProcessUsage.NONE;
+
+            @Override
+            public void writeFrame(BufferedImage frame) throws IOException {
+                ImageIO.write(frame, "PNG", framePath(written).toFile());
+                progress.onProgress(++written, job.frameCount());
+            }
+
+            @Override
+            public void repeatFrame(BufferedImage frame) throws IOException {
+                Files.copy(framePath(written - 1), framePath(written));
+                progress.onProgress(++written, job.frameCount());
+            }
+
+            private Path framePath(int index) {
+                return job.workDir().resolve("frame_" + String.format("%03d", index) + ".png");
+            }
+
+            @Override
+            public void finish() throws IOException {
+                List<String> command = inputArgs(videoProps.getFfmpegCommand(), job.workDir(), job.frameRate());
+                command.addAll(job.ffmpegOutputArgs());
+
+                System.out.println("Creating video with FFmpeg...");
+                System.out.println("Input frames: " + job.workDir());
+                System.out.println("Output video: " + job.main() + " (+" + (job.outputs().size() - 1) +
+                    " derived streams)");
+                try (FFmpegProcess ffmpeg = FFmpegProcess.start(command, false)) {
+                    ffmpeg.await(videoProps.getFfmpegTimeoutSeconds(), job.outputs());
+                    usage = ffmpeg.usage();
+                }
+            }
+
+            @Override
+            public ProcessUsage processUsage() {
+                return usage;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
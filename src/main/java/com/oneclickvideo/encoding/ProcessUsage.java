@@ -0,0 +1,12 @@
+package com.oneclickvideo.encoding;
+
+import java.time.Duration;
+
+/**
+ * Resources used by an encoder's helper process: total CPU time and peak resident
+ * memory. Both are sampled while the process runs, so they are lower bounds.
+ */
+public record ProcessUsage(Duration cpu, long peakRssBytes) {
+
+    public static final ProcessUsage NONE = new ProcessUsage(Duration.ZERO, 0);
+}
@@ -0,0 +1,132 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams raw pixels to FFmpeg's stdin while frames are still being rendered, so
+ * encoding overlaps rendering and no image is ever compressed twice. Each
+ * {@code xxRRGGBB} pixel goes out little-endian, which FFmpeg reads as
+ * {@code bgr0}; the unused high byte is ignored.
+ */
+public class RawPipeFFmpegEncoder implements VideoEncoder {
+
+    public static final String NAME = "raw-ffmpeg";
+
+    private final OneClickVideoProperties.Video videoProps;
+
+    public RawPipeFFmpegEncoder(OneClickVideoProperties.Video videoProps) {
+        this.videoProps = videoProps;
+    }
+
+    List<String> command(EncodeJob job) {
+        List<String> command = new ArrayList<>(List.of(
+            videoProps.getFfmpegCommand(),
+            "-y",
+            "-f", "rawvideo",
+            "-pix_fmt", "bgr0",
+            "-s", job.width() + "x" + job.height(),
+            "-framerate", Integer.toString(job.frameRate()),
+            "-i", "pipe:0"
+        ));
+        command.addAll(job.ffmpegOutputArgs());
+        return command;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String extension() {
+        return "mp4";
+    }
+
+    @Override
+    public boolean derivedOutputs() {
+        return true;
+    }
+
+    @Override
+    public boolean streamable() {
+        return true;
+    }
+
+    @Override
+    public boolean probe() {
+        return FFmpegProbe.canEncodeH264(videoProps, "rawvideo");
+    }
+
+    @Override
+    public Session open(EncodeJob job, ProgressListener progress) throws IOException {
+        System.out.println("Streaming raw frames to FFmpeg: " + job.main() + " (+" + (job.outputs().size() - 1) +
+            " derived streams)");
+        FFmpegProcess ffmpeg = FFmpegProcess.start(command(job), true);
+        WritableByteChannel stdin = Channels.newChannel(ffmpeg.stdin());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(job.width() * job.height() * 4).order(ByteOrder.LITTLE_ENDIAN);
+
+        return new Session() {
+            private int written;
+            private boolean finished;
+
+            @Override
+            public void writeFrame(BufferedImage frame) throws IOException {
+                buffer.clear();
+                buffer.asIntBuffer().put(((DataBufferInt) frame.getRaster().getDataBuffer()).getData());
+                send();
+            }
+
+            @Override
+            public void repeatFrame(BufferedImage frame) throws IOException {
+                buffer.rewind();
+                send();
+            }
+
+            private void send() throws IOException {
+                try {
+                    while (buffer.hasRemaining()) {
+                        stdin.write(buffer);
+                    }
+                } catch (IOException e) {
+                    throw new IOException("FFmpeg stopped reading frames: " + e.getMessage() +
+                        System.lineSeparator() + ffmpeg.output(), e);
+                }
+                progress.onProgress(++written, job.frameCount());
+            }
+
+            @Override
+            public void finish() throws IOException {
+                stdin.close();
+                ffmpeg.await(videoProps.getFfmpegTimeoutSeconds(), job.outputs());
+                finished = true;
+            }
+
+            @Override
+            public ProcessUsage processUsage() {
+                return ffmpeg.usage();
+            }
+
+            @Override
+            public void close() {
+                if (!finished) {
+                    ffmpeg.close();
+                }
+                try {
+                    stdin.close();
+                } catch (IOException e) {
+                    // FFmpeg is gone; nothing left to flush.
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.oneclickvideo.encoding;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Encoder backend SPI. A backend is stateless and shared; each job opens its own
+ * {@link Session}, hands it every frame in order and then calls
+ * {@link Session#finish()}. Frames are {@link BufferedImage#TYPE_INT_RGB} images
+ * that the caller may reuse as soon as {@code writeFrame} returns.
+ */
+public interface VideoEncoder {
+
+    /**
+     * Name used to select the backend in configuration and requests.
+     */
+    String name();
+
+    /**
+     * File extension of the main output, or {@code null} if the backend writes none.
+     */
+    String extension();
+
+    /**
+     * Whether the backend also produces the scaled renditions and animated preview
+     * described by {@link EncodeJob#ffmpegOutputArgs()}.
+     */
+    boolean derivedOutputs();
+
+    /**
+     * Whether the main output is written front to back, so that it can be read
+     * while it grows. FFmpeg backends qualify when the job's output arguments ask
+     * for fragmented MP4; a backend that patches headers at the end does not.
+     */
+    default boolean streamable() {
+        return false;
+    }
+
+    /**
+     * Checks whether this backend can run on this host. Called once at startup and
+     * may be slow.
+     */
+    boolean probe();
+
+    Session open(EncodeJob job, ProgressListener progress) throws IOException;
+
+    interface Session extends AutoCloseable {
+
+        void writeFrame(BufferedImage frame) throws IOException;
+
+        /**
+         * Writes {@code frame} again right after it was written, for runs of identical
+         * frames. Backends can reuse what they encoded instead of converting it again.
+         */
+        default void repeatFrame(BufferedImage frame) throws IOException {
+            writeFrame(frame);
+        }
+
+        /**
+         * Completes the output and waits until every file of the job is written.
+         */
+        void finish() throws IOException;
+
+        /**
+         * CPU and memory used by a child process such as FFmpeg, once
+         * {@link #finish()} has returned; {@link ProcessUsage#NONE} for in-process backends.
+         */
+        default ProcessUsage processUsage() {
+            return ProcessUsage.NONE;
+        }
+
+        /**
+         * Releases the session; aborts the encode if {@link #finish()} did not complete.
+         */
+        @Override
+        void close();
+    }
+
+    @FunctionalInterface
+    interface ProgressListener {
+
+        ProgressListener NONE = (framesEncoded, totalFrames) -> { };
+
+        /**
+         * Called after each frame has been accepted by the encoder.
+         */
+        void onProgress(int framesEncoded, int totalFrames);
+    }
+}
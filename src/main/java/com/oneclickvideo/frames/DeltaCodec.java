@@ -0,0 +1,134 @@
+package com.oneclickvideo.frames;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The frame-delta file format shared by {@link DeltaFrameWriter} and
+ * {@link DeltaFrameReader}. All numbers are little-endian ints.
+ *
+ * <pre>
+ * header  "OCVF" version width height frameRate frameCount
+ * record  type payloadBytes payload
+ * </pre>
+ *
+ * A {@link #KEYFRAME} payload is the frame's pixels, a {@link #DELTA} payload the
+ * pixels XORed with the previous frame, both run-length coded: a positive token
+ * {@code n} is followed by one int repeated {@code n} times, a negative token
+ * {@code -n} by {@code n} literal ints. Flat areas of a keyframe and unchanged
+ * areas of a delta collapse to a single run. A {@link #REPEAT} record has no
+ * payload and means the previous frame again.
+ */
+final class DeltaCodec {
+
+    static final byte[] MAGIC = "OCVF".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int FRAME_COUNT_OFFSET = 20;
+    static final int RECORD_HEADER_BYTES = 8;
+
+    static final int KEYFRAME = 0;
+    static final int DELTA = 1;
+    static final int REPEAT = 2;
+
+    /**
+     * Runs shorter than this stay in a literal block; two ints for a run of two
+     * would save nothing.
+     */
+    private static final int MIN_RUN = 3;
+
+    private DeltaCodec() {
+    }
+
+    /**
+     * Ints a payload for {@code pixels} pixels can take in the worst case: every
+     * minimal run followed by a one-int literal block.
+     */
+    static int maxPayloadInts(int pixels) {
+        return pixels + pixels / 2 + 2;
+    }
+
+    /**
+     * Codes {@code current}, XORed with {@code previous} unless that is {@code null},
+     * into {@code out}.
+     */
+    static void encode(int[] current, int[] previous, IntBuffer out) {
+        int n = current.length;
+        int literalHeader = -1;
+        int literals = 0;
+        int i = 0;
+        while (i < n) {
+            int value = previous == null ? current[i] : current[i] ^ previous[i];
+            int end = i + 1;
+            if (previous == null) {
+                while (end < n && current[end] == value) {
+                    end++;
+                }
+            } else {
+                while (end < n && (current[end] ^ previous[end]) == value) {
+                    end++;
+                }
+            }
+            int run = end - i;
+            if (run >= MIN_RUN) {
+                if (literalHeader >= 0) {
+                    out.put(literalHeader, -literals);
+                    literalHeader = -1;
+                }
+                out.put(run).put(value);
+            } else {
+                if (literalHeader < 0) {
+                    literalHeader = out.position();
+                    out.put(0);
+                    literals = 0;
+                }
+                for (int k = 0; k < run; k++) {
+                    out.put(value);
+                }
+                literals += run;
+            }
+            i = end;
+        }
+        if (literalHeader >= 0) {
+            out.put(literalHeader, -literals);
+        }
+    }
+
+    /**
+     * Decodes a payload into {@code pixels}: replaces them for a keyframe, XORs the
+     * deltas into them otherwise.
+     */
+    static void decode(IntBuffer in, int[] pixels, boolean delta) throws IOException {
+        int i = 0;
+        while (in.hasRemaining()) {
+            int token = in.get();
+            int count = Math.abs(token);
+            if (token == 0 || count > pixels.length - i || (token > 0 && !in.hasRemaining())
+                || (token < 0 && in.remaining() < count)) {
+                throw new IOException("Corrupt frame record at pixel " + i);
+            }
+            if (token > 0) {
+                int value = in.get();
+                if (!delta) {
+                    Arrays.fill(pixels, i, i + count, value);
+                } else if (value != 0) {
+                    for (int k = i; k < i + count; k++) {
+                        pixels[k] ^= value;
+                    }
+                }
+            } else if (delta) {
+                for (int k = i; k < i + count; k++) {
+                    pixels[k] ^= in.get();
+                }
+            } else {
+                in.get(pixels, i, count);
+            }
+            i += count;
+        }
+        if (i != pixels.length) {
+            throw new IOException("Frame record covers " + i + " of " + pixels.length + " pixels");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.oneclickvideo.frames;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Plays back a file written by {@link DeltaFrameWriter}, one frame at a time.
+ * A file cut short by a crash reads up to its last complete record.
+ */
+public final class DeltaFrameReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int frameRate;
+    private final int frameCount;
+    private final int[] pixels;
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(DeltaCodec.RECORD_HEADER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer payload = ByteBuffer.allocate(0);
+    private int frames;
+    private boolean repeated;
+
+    private DeltaFrameReader(FileChannel channel, ByteBuffer header) throws IOException {
+        this.channel = channel;
+        byte[] magic = new byte[DeltaCodec.MAGIC.length];
+        header.get(magic);
+        int version = header.getInt();
+        if (!Arrays.equals(magic, DeltaCodec.MAGIC) || version != DeltaCodec.VERSION) {
+            throw new IOException("Not a version " + DeltaCodec.VERSION + " frame-delta file");
+        }
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.frameRate = header.getInt();
+        this.frameCount = header.getInt();
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE / 4) {
+            throw new IOException("Bad frame size " + width + "x" + height);
+        }
+        this.pixels = new int[width * height];
+    }
+
+    public static DeltaFrameReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(DeltaCodec.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(channel, header)) {
+                throw new EOFException("Truncated frame-delta header in " + file);
+            }
+            return new DeltaFrameReader(channel, header.flip());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Counts the complete frame records in {@code file} by walking their headers,
+     * without decoding. Unlike {@link #frameCount()} this also works on a file
+     * the writer never closed.
+     */
+    public static int countFrames(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = DeltaCodec.HEADER_BYTES;
+            ByteBuffer header = ByteBuffer.allocate(DeltaCodec.RECORD_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int frames = 0;
+            while (position + DeltaCodec.RECORD_HEADER_BYTES <= size) {
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.read(header, position + header.position());
+                }
+                int bytes = header.getInt(4);
+                if (bytes < 0) {
+                    throw new IOException("Corrupt frame record " + frames);
+                }
+                position += DeltaCodec.RECORD_HEADER_BYTES + (long) bytes;
+                if (position > size) {
+                    break;
+                }
+                frames++;
+            }
+            return frames;
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int frameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Frames the writer recorded, or 0 if it never closed the file.
+     */
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Whether the frame last read is an exact repeat of the one before it.
+     */
+    public boolean repeated() {
+        return repeated;
+    }
+
+    /**
+     * Reads the next frame into a {@code TYPE_INT_RGB} image of the recorded size.
+     *
+     * @return {@code false} at the end of the recording
+     */
+    public boolean readInto(BufferedImage image) throws IOException {
+        if (image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " TYPE_INT_RGB frame");
+        }
+        if (!advance()) {
+            return false;
+        }
+        System.arraycopy(pixels, 0, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, pixels.length);
+        return true;
+    }
+
+    /**
+     * The next frame as a new image, or {@code null} at the end of the recording.
+     */
+    public BufferedImage next() throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        return readInto(image) ? image : null;
+    }
+
+    private boolean advance() throws IOException {
+        recordHeader.clear();
+        if (!readFully(channel, recordHeader)) {
+            return false;
+        }
+        recordHeader.flip();
+        int type = recordHeader.getInt();
+        int bytes = recordHeader.getInt();
+        if (bytes < 0 || bytes % 4 != 0 || (type == DeltaCodec.REPEAT) != (bytes == 0)
+            || (frames == 0 && type != DeltaCodec.KEYFRAME)) {
+            throw new IOException("Corrupt frame record " + frames);
+        }
+        if (payload.capacity() < bytes) {
+            payload = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        payload.clear().limit(bytes);
+        if (!readFully(channel, payload)) {
+            return false;
+        }
+        payload.flip();
+        switch (type) {
+            case DeltaCodec.KEYFRAME -> DeltaCodec.decode(payload.asIntBuffer(), pixels, false);
+            case DeltaCodec.DELTA -> DeltaCodec.decode(payload.asIntBuffer(), pixels, true);
+            case DeltaCodec.REPEAT -> { }
+            default -> throw new IOException("Unknown frame record type " + type);
+        }
+        repeated = type == DeltaCodec.REPEAT;
+        frames++;
+        return true;
+    }
+
+    /**
+     * Fills {@code buffer}; {@code false} if the file ends first.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,144 @@
+package com.oneclickvideo.frames;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records frames into a compact file: the first frame as a keyframe, every later
+ * one as a run-length coded XOR delta against the frame before it (see
+ * {@link DeltaCodec} for the layout). Mostly static story frames shrink to a few
+ * runs each, and nothing is compressed beyond that, so recording costs about one
+ * pass over the pixels. Each record goes out in a single gathering write of its
+ * header and payload.
+ */
+public final class DeltaFrameWriter implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int frameRate;
+    private final int[] previous;
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(DeltaCodec.RECORD_HEADER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer payload;
+    private final IntBuffer payloadInts;
+    private int frames;
+    private boolean closed;
+
+    private DeltaFrameWriter(FileChannel channel, int width, int height, int frameRate) {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.frameRate = frameRate;
+        this.previous = new int[width * height];
+        this.payload = ByteBuffer.allocateDirect(DeltaCodec.maxPayloadInts(width * height) * 4)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        this.payloadInts = payload.asIntBuffer();
+    }
+
+    /**
+     * Creates (or truncates) {@code file} for frames of {@code width x height}.
+     */
+    public static DeltaFrameWriter create(Path file, int width, int height, int frameRate) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Frames need a positive size");
+        }
+        if ((long) DeltaCodec.maxPayloadInts(width * height) * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Frame too large to record: " + width + "x" + height);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+        DeltaFrameWriter writer = new DeltaFrameWriter(channel, width, height, frameRate);
+        try {
+            writer.writeFully(writer.header());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Records a {@code TYPE_INT_RGB} frame; the image may be reused once this returns.
+     */
+    public void write(BufferedImage image) throws IOException {
+        if (image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " TYPE_INT_RGB frame");
+        }
+        write(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    }
+
+    public void write(int[] pixels) throws IOException {
+        if (pixels.length != previous.length) {
+            throw new IllegalArgumentException("Expected " + previous.length + " pixels, got " + pixels.length);
+        }
+        payloadInts.clear();
+        DeltaCodec.encode(pixels, frames == 0 ? null : previous, payloadInts);
+        payload.clear().limit(payloadInts.position() * 4);
+        writeRecord(frames == 0 ? DeltaCodec.KEYFRAME : DeltaCodec.DELTA, payload);
+        System.arraycopy(pixels, 0, previous, 0, pixels.length);
+    }
+
+    /**
+     * Records the previous frame again without looking at any pixels.
+     */
+    public void repeat() throws IOException {
+        if (frames == 0) {
+            throw new IllegalStateException("No frame to repeat yet");
+        }
+        payload.clear().limit(0);
+        writeRecord(DeltaCodec.REPEAT, payload);
+    }
+
+    private void writeRecord(int type, ByteBuffer body) throws IOException {
+        recordHeader.clear();
+        recordHeader.putInt(type).putInt(body.remaining()).flip();
+        ByteBuffer[] record = {recordHeader, body};
+        while (recordHeader.hasRemaining() || body.hasRemaining()) {
+            channel.write(record);
+        }
+        frames++;
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(DeltaCodec.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(DeltaCodec.MAGIC).putInt(DeltaCodec.VERSION).putInt(width).putInt(height).putInt(frameRate)
+            .putInt(frames);
+        return header.flip();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Stores the frame count in the header and closes the file. A file whose writer
+     * never closed still reads back up to its last complete record.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (channel) {
+            ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(frames).flip();
+            while (count.hasRemaining()) {
+                channel.write(count, DeltaCodec.FRAME_COUNT_OFFSET + count.position());
+            }
+        }
+    }
+}
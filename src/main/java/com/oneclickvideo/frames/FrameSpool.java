@@ -0,0 +1,251 @@
+package com.oneclickvideo.frames;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring of raw frame slots in a memory-mapped file.
+ *
+ * Each slot holds one frame as packed {@code 0x00RRGGBB} ints in native byte order,
+ * the layout of a {@link BufferedImage#TYPE_INT_RGB} raster, so frames move in and
+ * out with a bulk copy and no encode or decode. Frame {@code n} lives in slot
+ * {@code n % slots}. Renderers may write frames in any order, blocking only while
+ * their slot still holds an unread frame; a single consumer reads frames strictly
+ * in order and releases each slot for reuse. Pixels stay in the page cache rather
+ * than on the heap, so a long render needs only {@code slots} frames of memory.
+ */
+public final class FrameSpool implements AutoCloseable {
+
+    private static final int FREE = -1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final MappedByteBuffer[] slots;
+    private final int[] slotFrame;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int nextRead;
+    private Throwable failure;
+    private boolean closed;
+
+    private FrameSpool(Path file, FileChannel channel, int width, int height, int slotCount) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.slots = new MappedByteBuffer[slotCount];
+        this.slotFrame = new int[slotCount];
+        Arrays.fill(slotFrame, FREE);
+
+        long slotBytes = frameBytes();
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * slotBytes, slotBytes);
+            slots[i].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Creates (or truncates) {@code file} and maps {@code slots} frame slots of
+     * {@code width x height}. The file is deleted on {@link #close()}, or at exit
+     * where the platform refuses to delete a file that is still mapped.
+     */
+    public static FrameSpool create(Path file, int width, int height, int slots) throws IOException {
+        if (width <= 0 || height <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Spool needs a positive size and slot count");
+        }
+        if ((long) width * height * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Frame too large for one mapped slot: " + width + "x" + height);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new FrameSpool(file, channel, width, height, slots);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int slots() {
+        return slots.length;
+    }
+
+    public long frameBytes() {
+        return (long) width * height * 4;
+    }
+
+    /**
+     * Copies a rendered {@code TYPE_INT_RGB} frame into its slot, waiting until the
+     * frame that last used the slot has been released.
+     *
+     * @throws IOException if the spool has failed or been closed
+     */
+    public void write(int frame, BufferedImage image) throws IOException, InterruptedException {
+        if (image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " TYPE_INT_RGB frame");
+        }
+        write(frame, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    }
+
+    public void write(int frame, int[] pixels) throws IOException, InterruptedException {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " pixels, got " + pixels.length);
+        }
+        int slot = frame % slots.length;
+        lock.lock();
+        try {
+            checkOpen();
+            while (frame >= nextRead + slots.length) {
+                awaitChange();
+            }
+            if (frame < nextRead || slotFrame[slot] != FREE) {
+                throw new IllegalStateException("Frame " + frame + " was already written");
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // The slot is reserved for this frame until it is published, so the copy can
+        // run without the lock and in parallel with writers of other slots.
+        slots[slot].duplicate().order(ByteOrder.nativeOrder()).asIntBuffer().put(pixels);
+
+        lock.lock();
+        try {
+            checkOpen();
+            slotFrame[slot] = frame;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next frame in order and returns a read-only view of its slot,
+     * positioned at the first pixel. The view stays valid until {@link #release()}.
+     */
+    public ByteBuffer next() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            int slot = nextRead % slots.length;
+            while (slotFrame[slot] != nextRead) {
+                awaitChange();
+            }
+            return slots[slot].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next frame into {@code target}'s raster and releases its slot.
+     *
+     * @return the frame number that was read
+     */
+    public int readInto(BufferedImage target) throws IOException, InterruptedException {
+        int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        IntBuffer frame = next().asIntBuffer();
+        if (frame.remaining() != pixels.length) {
+            throw new IllegalArgumentException("Target image does not match spool frame size");
+        }
+        frame.get(pixels);
+        return release();
+    }
+
+    /**
+     * Frees the slot of the frame returned by {@link #next()} for reuse.
+     *
+     * @return the frame number that was released
+     */
+    public int release() {
+        lock.lock();
+        try {
+            int frame = nextRead;
+            int slot = frame % slots.length;
+            if (slotFrame[slot] != frame) {
+                throw new IllegalStateException("Frame " + frame + " has not been read");
+            }
+            slotFrame[slot] = FREE;
+            nextRead++;
+            changed.signalAll();
+            return frame;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aborts the spool: every blocked and future read or write throws an
+     * {@link IOException} carrying {@code cause}.
+     */
+    public void fail(Throwable cause) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = cause;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        channel.close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Windows keeps a file open while any mapping of it is alive, and slot
+            // buffers are only unmapped when collected; the job is fine either way.
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private void awaitChange() throws IOException, InterruptedException {
+        checkOpen();
+        changed.await();
+        checkOpen();
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("Frame spool aborted", failure);
+        }
+        if (closed) {
+            throw new IOException("Frame spool closed");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.oneclickvideo.reactive;
+
+import com.oneclickvideo.encoding.EncoderRegistry;
+import com.oneclickvideo.scheduling.JobSpec;
+import com.oneclickvideo.service.GenerationRequest;
+import com.oneclickvideo.service.VideoService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Handlers for the {@code /reactive} routes. None of them blocks: jobs are only
+ * queued here, output is read on the reader scheduler, and a request costs the
+ * event loop nothing while it waits.
+ */
+class GenerationHandler {
+
+    private final GenerationStreams streams;
+    private final VideoService videoService;
+    private final EncoderRegistry encoders;
+    private final Clock clock;
+
+    GenerationHandler(GenerationStreams streams, VideoService videoService, EncoderRegistry encoders, Clock clock) {
+        this.streams = streams;
+        this.videoService = videoService;
+        this.encoders = encoders;
+        this.clock = clock;
+    }
+
+    /**
+     * {@code POST /reactive/jobs}: queues a job and answers 202 with the links to
+     * its progress and output.
+     */
+    Mono<ServerResponse> submit(ServerRequest request) {
+        return start(request).flatMap(job -> ServerResponse.accepted()
+            .location(URI.create("/reactive/jobs/" + job.id()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(JobLinks.of(job)))
+            .onErrorResume(GenerationHandler::isRequestError, GenerationHandler::rejected);
+    }
+
+    /**
+     * {@code POST /reactive/create}: queues a job and streams its main output in
+     * the response body as it is encoded.
+     */
+    Mono<ServerResponse> create(ServerRequest request) {
+        return start(request).flatMap(job -> streamOutput(job)
+                .header("X-Job-Id", job.id())
+                .header("Link", "<" + JobLinks.of(job).progress() + ">; rel=\"progress\"")
+                .body(BodyInserters.fromDataBuffers(job.output())))
+            .onErrorResume(GenerationHandler::isRequestError, GenerationHandler::rejected);
+    }
+
+    /**
+     * {@code GET /reactive/jobs/{id}/output}: the job's main output from the start,
+     * following it while it is written.
+     */
+    Mono<ServerResponse> output(ServerRequest request) {
+        return streams.find(request.pathVariable("id"))
+            .map(job -> streamOutput(job).body(BodyInserters.fromDataBuffers(job.output())))
+            .orElseGet(() -> ServerResponse.notFound().build());
+    }
+
+    /**
+     * {@code GET /reactive/jobs/{id}/progress}: Server-Sent Events named after the
+     * job state, ending with {@code done} or {@code failed}.
+     */
+    Mono<ServerResponse> progress(ServerRequest request) {
+        return streams.find(request.pathVariable("id"))
+            .map(job -> ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(job.progress()
+                    .map(event -> ServerSentEvent.builder(event).event(event.state()).build()))))
+            .orElseGet(() -> ServerResponse.notFound().build());
+    }
+
+    private Mono<StreamingJob> start(ServerRequest request) {
+        return parameters(request).map(params -> {
+            String encoder = params.getFirst("encoder");
+            String extension = encoders.resolve(encoder).extension();
+            Long seed = parseLong(params.getFirst("seed"));
+            GenerationRequest job = new GenerationRequest(seed != null ? seed : ThreadLocalRandom.current().nextLong(),
+                params.getFirst("contentId"), null, encoder);
+            JobSpec spec = JobSpec.forRequest(videoService.channelOf(job), params.getFirst("priority"),
+                parseLong(params.getFirst("deadlineSeconds")), clock.instant(), videoService.costOf(job));
+            return streams.start(job, spec, extension);
+        });
+    }
+
+    /**
+     * Query parameters plus form fields, as {@code @RequestParam} sees them on {@code /create}.
+     */
+    private static Mono<MultiValueMap<String, String>> parameters(ServerRequest request) {
+        return request.formData().map(form -> {
+            MultiValueMap<String, String> params = new LinkedMultiValueMap<>(request.queryParams());
+            params.addAll(form);
+            return params;
+        });
+    }
+
+    private static ServerResponse.BodyBuilder streamOutput(StreamingJob job) {
+        MediaType type = job.extension() == null ? MediaType.APPLICATION_OCTET_STREAM
+            : MediaTypeFactory.getMediaType("output." + job.extension()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return ServerResponse.ok().contentType(type);
+    }
+
+    private static Long parseLong(String value) {
+        return value == null || value.isBlank() ? null : Long.valueOf(value.trim());
+    }
+
+    private static boolean isRequestError(Throwable error) {
+        return error instanceof IllegalArgumentException || error instanceof RejectedExecutionException;
+    }
+
+    private static Mono<ServerResponse> rejected(Throwable error) {
+        return ServerResponse.status(error instanceof RejectedExecutionException ? 503 : 400)
+            .contentType(MediaType.TEXT_PLAIN)
+            .bodyValue(error.getMessage());
+    }
+
+    record JobLinks(String id, String progress, String output) {
+
+        static JobLinks of(StreamingJob job) {
+            String base = "/reactive/jobs/" + job.id();
+            return new JobLinks(job.id(), base + "/progress", base + "/output");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.oneclickvideo.reactive;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.scheduling.GenerationScheduler;
+import com.oneclickvideo.scheduling.JobSpec;
+import com.oneclickvideo.service.GenerationRequest;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jobs started through the reactive endpoints, by id. Each one goes through the
+ * same {@link GenerationScheduler} as {@code /create}; finished jobs stay
+ * addressable for {@code retentionSeconds} so clients can still read their
+ * progress and output.
+ */
+class GenerationStreams {
+
+    private final GenerationScheduler scheduler;
+    private final OneClickVideoProperties.Reactive config;
+    private final Scheduler readers;
+    private final Map<String, StreamingJob> jobs = new ConcurrentHashMap<>();
+
+    GenerationStreams(GenerationScheduler scheduler, OneClickVideoProperties.Reactive config) {
+        this(scheduler, config, Schedulers.boundedElastic());
+    }
+
+    GenerationStreams(GenerationScheduler scheduler, OneClickVideoProperties.Reactive config, Scheduler readers) {
+        this.scheduler = scheduler;
+        this.config = config;
+        this.readers = readers;
+    }
+
+    /**
+     * Queues {@code request} with a listener that streams it.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the scheduler queue is full
+     */
+    StreamingJob start(GenerationRequest request, JobSpec spec, String extension) {
+        String id = UUID.randomUUID().toString();
+        StreamingJob job = new StreamingJob(id, extension, config, readers);
+        jobs.put(id, job);
+        try {
+            scheduler.submit(request.withListener(job), spec).whenComplete((result, error) -> {
+                if (error == null) {
+                    job.complete(result);
+                } else {
+                    job.fail(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                }
+                Mono.delay(Duration.ofSeconds(config.getRetentionSeconds())).subscribe(ignored -> jobs.remove(id));
+            });
+        } catch (RuntimeException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        return job;
+    }
+
+    Optional<StreamingJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+}
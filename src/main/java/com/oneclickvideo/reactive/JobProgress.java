@@ -0,0 +1,10 @@
+package com.oneclickvideo.reactive;
+
+/**
+ * One progress event of a streamed job: its state ({@code queued}, {@code running},
+ * {@code done} or {@code failed}), frames encoded so far out of the total, the
+ * main output's file name once known, and the error message of a failed job.
+ */
+public record JobProgress(String job, String state, int framesEncoded, int totalFrames, String file,
+                          String error) {
+}
@@ -0,0 +1,51 @@
+package com.oneclickvideo.reactive;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.encoding.EncoderRegistry;
+import com.oneclickvideo.scheduling.GenerationScheduler;
+import com.oneclickvideo.service.VideoService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.time.Clock;
+
+/**
+ * Streaming generation endpoints, only present when the app runs on the reactive
+ * stack ({@code --spring.profiles.active=reactive}). The annotated controllers keep
+ * serving their routes there too, next to these.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveGenerationConfiguration {
+
+    /**
+     * Netty rather than Tomcat, which is also on the classpath for the servlet
+     * stack: a few event-loop threads then hold any number of waiting clients.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    GenerationStreams generationStreams(GenerationScheduler scheduler, OneClickVideoProperties properties) {
+        return new GenerationStreams(scheduler, properties.getReactive());
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> generationRoutes(GenerationStreams streams, VideoService videoService,
+                                                    EncoderRegistry encoders, Clock clock) {
+        GenerationHandler handler = new GenerationHandler(streams, videoService, encoders, clock);
+        return RouterFunctions.route()
+            .POST("/reactive/jobs", handler::submit)
+            .GET("/reactive/jobs/{id}/progress", handler::progress)
+            .GET("/reactive/jobs/{id}/output", handler::output)
+            .POST("/reactive/create", handler::create)
+            .build();
+    }
+}
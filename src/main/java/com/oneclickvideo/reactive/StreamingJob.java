@@ -0,0 +1,340 @@
+package com.oneclickvideo.reactive;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.service.GenerationListener;
+import com.oneclickvideo.service.GenerationResult;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A generation job followed by reactive clients: a replayed stream of
+ * {@link JobProgress} events and any number of tails on its main output.
+ *
+ * <p>Each {@link #output()} subscriber reads the file from the start at its own
+ * pace and only when it asks for more, so the file on disk is the only buffer.
+ * While a subscriber is attached and more than {@code streamWindowBytes} behind
+ * what the encoder has written, {@link #onProgress} holds the encode thread; the
+ * renderers then stall on the frame spool, and the job goes no faster than its
+ * slowest reader. A reader that has read nothing for {@code stallSeconds} while
+ * behind is left behind on its own: it still reads the file at its pace but no
+ * longer holds the encoder, and the other readers keep throttling it. However
+ * many readers come and go, a job is held back for at most
+ * {@code maxThrottleSeconds} in total, then runs on at full speed.
+ */
+final class StreamingJob implements GenerationListener {
+
+    static final String QUEUED = "queued";
+    static final String RUNNING = "running";
+    static final String DONE = "done";
+    static final String FAILED = "failed";
+
+    private final String id;
+    private final String extension;
+    private final int chunkBytes;
+    private final long windowBytes;
+    private final long stallNanos;
+    private final long maxThrottleNanos;
+    private final Scheduler readers;
+    private final Sinks.Many<JobProgress> progress = Sinks.many().replay().latest();
+    private final List<Tail> tails = new CopyOnWriteArrayList<>();
+    private final Object demand = new Object();
+    private volatile Path output;
+    private volatile boolean started;
+    private volatile boolean growing;
+    private volatile boolean finished;
+    private volatile Throwable error;
+    private long throttledNanos; // encode thread only
+
+    StreamingJob(String id, String extension, OneClickVideoProperties.Reactive config, Scheduler readers) {
+        this.id = id;
+        this.extension = extension;
+        this.chunkBytes = Math.max(1, config.getChunkBytes());
+        this.windowBytes = Math.max(0, config.getStreamWindowBytes());
+        this.stallNanos = TimeUnit.SECONDS.toNanos(config.getStallSeconds());
+        this.maxThrottleNanos = TimeUnit.SECONDS.toNanos(config.getMaxThrottleSeconds());
+        this.readers = readers;
+        emit(new JobProgress(id, QUEUED, 0, 0, null, null));
+    }
+
+    String id() {
+        return id;
+    }
+
+    /**
+     * Extension of the main output, or {@code null} if the encoder writes none.
+     */
+    String extension() {
+        return extension;
+    }
+
+    /**
+     * Progress events, starting with the latest one; completes after {@code done}
+     * or {@code failed}. Slow subscribers skip to the newest event.
+     */
+    Flux<JobProgress> progress() {
+        return progress.asFlux().onBackpressureLatest();
+    }
+
+    /**
+     * The main output as it is written, read from the start for each subscriber.
+     * Completes empty if the encoder writes no file, and with the job's error if it fails.
+     */
+    Flux<DataBuffer> output() {
+        return Flux.create(sink -> {
+            Tail tail = new Tail(sink);
+            tails.add(tail);
+            sink.onRequest(requested -> tail.schedule());
+            sink.onDispose(tail::dispose);
+        });
+    }
+
+    @Override
+    public boolean streamsOutput() {
+        return true;
+    }
+
+    @Override
+    public void onOutput(Path main, boolean growing) {
+        this.output = main;
+        this.growing = growing;
+        this.started = true;
+        emit(new JobProgress(id, RUNNING, 0, 0, fileName(main), null));
+        pokeTails();
+    }
+
+    @Override
+    public void onProgress(int framesEncoded, int totalFrames) {
+        emit(new JobProgress(id, RUNNING, framesEncoded, totalFrames, fileName(output), null));
+        pokeTails();
+        awaitDemand();
+    }
+
+    void complete(GenerationResult result) {
+        finished = true;
+        int frames = result.settings().frameCount();
+        last(new JobProgress(id, DONE, frames, frames, result.file() != null ? result.file().getName() : null, null));
+        pokeTails();
+    }
+
+    void fail(Throwable cause) {
+        error = cause;
+        finished = true;
+        last(new JobProgress(id, FAILED, 0, 0, fileName(output), cause.getMessage()));
+        pokeTails();
+        signalDemand();
+    }
+
+    private synchronized void emit(JobProgress event) {
+        progress.tryEmitNext(event);
+    }
+
+    private synchronized void last(JobProgress event) {
+        progress.tryEmitNext(event);
+        progress.tryEmitComplete();
+    }
+
+    private void pokeTails() {
+        for (Tail tail : tails) {
+            tail.schedule();
+        }
+    }
+
+    /**
+     * Blocks the encode thread while an attached reader is more than the window
+     * behind the bytes already written. Each lagging reader gets {@code stallSeconds}
+     * from its own last read before it is left behind, and the time spent here
+     * counts against the job's throttle budget.
+     */
+    private void awaitDemand() {
+        if (!growing || tails.isEmpty() || throttledNanos >= maxThrottleNanos) {
+            return;
+        }
+        long waitStarted = System.nanoTime();
+        synchronized (demand) {
+            try {
+                while (error == null) {
+                    long now = System.nanoTime();
+                    long written = written();
+                    long untilStall = Long.MAX_VALUE;
+                    for (Tail tail : tails) {
+                        if (!tail.throttles || written - tail.position <= windowBytes) {
+                            continue;
+                        }
+                        long left = tail.lastReadNanos + stallNanos - now;
+                        if (left <= 0) {
+                            tail.throttles = false;
+                            System.out.println("Streaming client of job " + id + " stalled; encoding on without it");
+                        } else {
+                            untilStall = Math.min(untilStall, left);
+                        }
+                    }
+                    if (untilStall == Long.MAX_VALUE) {
+                        return;
+                    }
+                    long budgetLeft = maxThrottleNanos - throttledNanos - (now - waitStarted);
+                    if (budgetLeft <= 0) {
+                        System.out.println("Job " + id + " reached its throttle limit; encoding on at full speed");
+                        return;
+                    }
+                    demand.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.min(untilStall, budgetLeft))));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                throttledNanos += System.nanoTime() - waitStarted;
+            }
+        }
+    }
+
+    private long written() {
+        try {
+            return Files.size(output);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void signalDemand() {
+        synchronized (demand) {
+            demand.notifyAll();
+        }
+    }
+
+    private static String fileName(Path file) {
+        return file != null ? file.getFileName().toString() : null;
+    }
+
+    /**
+     * One subscriber's read position in the output. Reads run on the reader
+     * scheduler, never on the event loop, and at most one at a time per tail.
+     */
+    private final class Tail {
+
+        private final FluxSink<DataBuffer> sink;
+        private final AtomicInteger pending = new AtomicInteger();
+        private FileChannel channel;
+        private volatile long position;
+        private volatile long lastReadNanos = System.nanoTime();
+        private volatile boolean throttles = true;
+        private volatile boolean terminated;
+
+        Tail(FluxSink<DataBuffer> sink) {
+            this.sink = sink;
+        }
+
+        void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                readers.schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (terminated) {
+                    closeChannel();
+                } else {
+                    try {
+                        read();
+                    } catch (IOException e) {
+                        terminate();
+                        sink.error(e);
+                    }
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void read() throws IOException {
+            // Whether the job was done is read before the file size, so a finished
+            // job's size is final and everything up to it has been read.
+            boolean done = finished;
+            Throwable failure = error;
+            if (failure != null) {
+                terminate();
+                sink.error(failure);
+                return;
+            }
+            if (!started || (!growing && !done)) {
+                return;
+            }
+            Path file = output;
+            if (file == null) {
+                terminate();
+                sink.complete();
+                return;
+            }
+            if (channel == null) {
+                try {
+                    channel = FileChannel.open(file, StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    if (done) {
+                        throw e;
+                    }
+                    return; // the encoder has not created it yet
+                }
+            }
+            while (sink.requestedFromDownstream() > 0 && !terminated) {
+                long size = channel.size();
+                if (position >= size) {
+                    if (done) {
+                        terminate();
+                        sink.complete();
+                    }
+                    return;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(chunkBytes, size - position));
+                int read;
+                do {
+                    read = channel.read(buffer, position + buffer.position());
+                } while (read >= 0 && buffer.hasRemaining());
+                buffer.flip();
+                position += buffer.remaining();
+                lastReadNanos = System.nanoTime();
+                sink.next(DefaultDataBufferFactory.sharedInstance.wrap(buffer));
+                signalDemand();
+            }
+        }
+
+        void dispose() {
+            tails.remove(this);
+            terminated = true;
+            signalDemand();
+            schedule(); // closes the channel on the reader thread
+        }
+
+        private void terminate() {
+            terminated = true;
+            tails.remove(this);
+            signalDemand();
+            closeChannel();
+        }
+
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // nothing left to read from it
+                }
+                channel = null;
+            }
+        }
+    }
+}
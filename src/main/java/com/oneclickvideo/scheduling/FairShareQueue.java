@@ -0,0 +1,183 @@
+package com.oneclickvideo.scheduling;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Dispatch order for queued jobs. Not thread-safe; {@link GenerationScheduler}
+ * guards it with its lock.
+ *
+ * Within a priority class, tenants share workers by start-time fair queuing: each
+ * job gets a virtual finish tag of {@code max(V, tenant's last finish) + cost / weight},
+ * and the smallest tag runs next, so a cheap job overtakes queued expensive renders
+ * and a tenant submitting in bulk only ever gets its weighted share. Jobs whose
+ * deadline falls within the slack window pre-empt that order, earliest deadline
+ * first. Tenants already running at their concurrency cap are skipped. A tenant's
+ * last finish tag is dropped once it has nothing queued or running, so the map
+ * only holds active tenants and an idle tenant restarts at {@code V}.
+ *
+ * Selection scans the class queue, which is fine for the hundreds of jobs a node
+ * holds at once.
+ */
+final class FairShareQueue<T> {
+
+    private final ToDoubleFunction<String> weights;
+    private final ToIntFunction<String> caps;
+    private final long agingNanos;
+    private final long deadlineSlackNanos;
+
+    private final Map<JobPriority, List<Entry<T>>> queues = new EnumMap<>(JobPriority.class);
+    private final Map<String, Double> lastFinish = new HashMap<>();
+    private final Map<String, Integer> queued = new HashMap<>();
+    private final Map<String, Integer> running = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+
+    FairShareQueue(ToDoubleFunction<String> weights, ToIntFunction<String> caps, long agingNanos,
+                   long deadlineSlackNanos) {
+        this.weights = weights;
+        this.caps = caps;
+        this.agingNanos = agingNanos;
+        this.deadlineSlackNanos = deadlineSlackNanos;
+        for (JobPriority priority : JobPriority.values()) {
+            queues.put(priority, new ArrayList<>());
+        }
+    }
+
+    void add(T payload, JobSpec spec, long nowNanos) {
+        double weight = Math.max(weights.applyAsDouble(spec.tenant()), 1e-6);
+        double start = Math.max(virtualTime, lastFinish.getOrDefault(spec.tenant(), 0.0));
+        double finish = start + spec.cost() / weight;
+        lastFinish.put(spec.tenant(), finish);
+        queued.merge(spec.tenant(), 1, Integer::sum);
+        queues.get(spec.priority()).add(new Entry<>(payload, spec, sequence++, start, finish, nowNanos));
+    }
+
+    /**
+     * Removes and returns the next job to run, or {@code null} if every queued job
+     * belongs to a tenant at its concurrency cap. The returned job counts against its
+     * tenant's cap until {@link #complete(String)} is called.
+     */
+    Entry<T> poll(long nowNanos, Instant now) {
+        Entry<T> next = select(agedBatch(nowNanos), now);
+        if (next == null) {
+            next = select(queues.get(JobPriority.INTERACTIVE), now);
+        }
+        if (next == null) {
+            next = select(queues.get(JobPriority.BATCH), now);
+        }
+        if (next == null) {
+            return null;
+        }
+
+        queues.get(next.spec.priority()).remove(next);
+        decrement(queued, next.spec.tenant());
+        virtualTime = Math.max(virtualTime, next.startTag);
+        running.merge(next.spec.tenant(), 1, Integer::sum);
+        return next;
+    }
+
+    void complete(String tenant) {
+        decrement(running, tenant);
+        if (!queued.containsKey(tenant) && !running.containsKey(tenant)) {
+            lastFinish.remove(tenant);
+        }
+    }
+
+    int size(JobPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    int size() {
+        int total = 0;
+        for (List<Entry<T>> queue : queues.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    int running(String tenant) {
+        return running.getOrDefault(tenant, 0);
+    }
+
+    /**
+     * Tenants with a finish tag, i.e. with jobs queued or running.
+     */
+    int tenants() {
+        return lastFinish.size();
+    }
+
+    List<T> drain() {
+        List<T> drained = new ArrayList<>();
+        for (List<Entry<T>> queue : queues.values()) {
+            for (Iterator<Entry<T>> it = queue.iterator(); it.hasNext(); ) {
+                drained.add(it.next().payload);
+                it.remove();
+            }
+        }
+        queued.clear();
+        lastFinish.keySet().retainAll(running.keySet());
+        return drained;
+    }
+
+    private static void decrement(Map<String, Integer> counts, String tenant) {
+        counts.computeIfPresent(tenant, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private List<Entry<T>> agedBatch(long nowNanos) {
+        List<Entry<T>> aged = new ArrayList<>();
+        for (Entry<T> entry : queues.get(JobPriority.BATCH)) {
+            if (nowNanos - entry.enqueuedNanos >= agingNanos) {
+                aged.add(entry);
+            }
+        }
+        return aged;
+    }
+
+    private Entry<T> select(List<Entry<T>> candidates, Instant now) {
+        Instant urgentBefore = now.plusNanos(deadlineSlackNanos);
+        Entry<T> urgent = null;
+        Entry<T> fair = null;
+        for (Entry<T> entry : candidates) {
+            if (running(entry.spec.tenant()) >= caps.applyAsInt(entry.spec.tenant())) {
+                continue;
+            }
+            Instant deadline = entry.spec.deadline();
+            if (deadline != null && deadline.isBefore(urgentBefore)
+                && (urgent == null || deadline.isBefore(urgent.spec.deadline()))) {
+                urgent = entry;
+            }
+            if (fair == null || entry.finishTag < fair.finishTag
+                || (entry.finishTag == fair.finishTag && entry.sequence < fair.sequence)) {
+                fair = entry;
+            }
+        }
+        return urgent != null ? urgent : fair;
+    }
+
+    static final class Entry<T> {
+
+        final T payload;
+        final JobSpec spec;
+        final long sequence;
+        final double startTag;
+        final double finishTag;
+        final long enqueuedNanos;
+
+        private Entry(T payload, JobSpec spec, long sequence, double startTag, double finishTag, long enqueuedNanos) {
+            this.payload = payload;
+            this.spec = spec;
+            this.sequence = sequence;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.oneclickvideo.scheduling;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of a generation job. Interactive jobs are always dispatched
+ * before batch jobs, except for batch jobs that have waited past the aging limit.
+ */
+public enum JobPriority {
+    INTERACTIVE,
+    BATCH;
+
+    public static JobPriority parse(String value) {
+        if (value == null || value.isBlank()) {
+            return INTERACTIVE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority: " + value + " (expected interactive or batch)");
+        }
+    }
+
+    String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,36 @@
+package com.oneclickvideo.scheduling;
+
+import java.time.Instant;
+
+/**
+ * How a job is queued: the tenant (channel) it is billed to, its priority class,
+ * an optional completion deadline, and its estimated cost in megapixels rendered
+ * and encoded.
+ */
+public record JobSpec(String tenant, JobPriority priority, Instant deadline, double cost) {
+
+    public JobSpec {
+        if (tenant == null || tenant.isBlank()) {
+            throw new IllegalArgumentException("Jobs must name a tenant");
+        }
+        if (priority == null) {
+            priority = JobPriority.INTERACTIVE;
+        }
+        cost = Math.max(cost, 1e-6);
+    }
+
+    /**
+     * The spec for a web request billed to {@code tenant}, with its optional
+     * {@code priority}, a deadline relative to {@code now} and the request's own
+     * estimated {@code cost}.
+     */
+    public static JobSpec forRequest(String tenant, String priority, Long deadlineSeconds, Instant now,
+                                     double cost) {
+        return new JobSpec(
+            tenant,
+            JobPriority.parse(priority),
+            deadlineSeconds != null ? now.plusSeconds(deadlineSeconds) : null,
+            cost
+        );
+    }
+}
@@ -0,0 +1,192 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Load-aware admission policy for generation jobs.
+ *
+ * Tracks how many jobs are in flight and, as moving averages, how long a frame
+ * takes to render and to encode per megapixel. When the predicted job time or the
+ * queue depth exceeds what the node can absorb, new jobs are stepped down, in
+ * order, to a faster encoder preset, a lower resolution and a shorter duration,
+ * never below the operator's configured minimums.
+ */
+@Component
+public class AdaptiveLoadPolicy {
+
+    static final double PRESET_PRESSURE = 1.0;
+    static final double RESOLUTION_PRESSURE = 1.5;
+    static final double DURATION_PRESSURE = 2.0;
+
+    private static final double SMOOTHING = 0.3;
+
+    private final OneClickVideoProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile IntSupplier backlog = () -> 0;
+    private volatile double renderMillisPerMegapixel = Double.NaN;
+    private volatile double encodeMillisPerMegapixel = Double.NaN;
+
+    public AdaptiveLoadPolicy(OneClickVideoProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Marks a job as in flight until the returned ticket is closed, and decides its
+     * settings from the load with the job itself counted, so concurrent admissions
+     * each see the others.
+     */
+    public Ticket admit() {
+        int jobs = inFlight.incrementAndGet();
+        try {
+            return new Ticket(decide(jobs));
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * What {@link #admit()} would decide for a job admitted now, without admitting it.
+     */
+    Decision decide() {
+        return decide(inFlight.get() + 1);
+    }
+
+    private Decision decide(int jobs) {
+        RenderSettings requested = RenderSettings.from(properties.getVideo());
+        OneClickVideoProperties.Adaptive adaptive = properties.getAdaptive();
+        if (!adaptive.isEnabled()) {
+            return new Decision(requested, List.of(), 0);
+        }
+
+        double pressure = pressure(requested, jobs);
+        RenderSettings settings = requested;
+        List<String> applied = new ArrayList<>();
+
+        if (pressure >= PRESET_PRESSURE && !adaptive.getFastPreset().equals(settings.preset())) {
+            settings = settings.withPreset(adaptive.getFastPreset());
+            applied.add(String.format(Locale.ROOT, "preset %s->%s (pressure %.2f)",
+                requested.preset(), settings.preset(), pressure));
+        }
+
+        if (pressure >= RESOLUTION_PRESSURE) {
+            double scale = Math.max(2.0 / 3.0, Math.max(
+                adaptive.getMinWidth() / (double) settings.width(),
+                adaptive.getMinHeight() / (double) settings.height()));
+            if (scale < 1.0) {
+                settings = settings.withSize(even(settings.width() * scale), even(settings.height() * scale));
+                applied.add(String.format(Locale.ROOT, "resolution %dx%d->%dx%d (pressure %.2f)",
+                    requested.width(), requested.height(), settings.width(), settings.height(), pressure));
+            }
+        }
+
+        if (pressure >= DURATION_PRESSURE) {
+            int duration = Math.max(adaptive.getMinDuration(), settings.duration() / 2);
+            if (duration < settings.duration()) {
+                settings = settings.withDuration(duration);
+                applied.add(String.format(Locale.ROOT, "duration %ds->%ds (pressure %.2f)",
+                    requested.duration(), duration, pressure));
+            }
+        }
+
+        return new Decision(settings, List.copyOf(applied), pressure);
+    }
+
+    /**
+     * Counts the jobs waiting in front of the node, such as a scheduler queue,
+     * towards queue pressure.
+     */
+    public void trackBacklog(IntSupplier backlog) {
+        this.backlog = backlog;
+    }
+
+    public void recordRender(RenderSettings settings, int frames, long nanos) {
+        renderMillisPerMegapixel = smooth(renderMillisPerMegapixel, millisPerMegapixel(settings, frames, nanos));
+    }
+
+    public void recordEncode(RenderSettings settings, int frames, long nanos) {
+        encodeMillisPerMegapixel = smooth(encodeMillisPerMegapixel, millisPerMegapixel(settings, frames, nanos));
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Ratio of expected load to capacity for a job that makes {@code jobs} in flight;
+     * 1.0 means the node is exactly saturated. Uses the larger of queue pressure (jobs
+     * in flight plus those waiting in the backlog, over the concurrency limit) and
+     * time pressure (predicted wall time of this job, stretched by CPU contention
+     * with the others in flight, over the target job time).
+     */
+    double pressure(RenderSettings settings, int jobs) {
+        OneClickVideoProperties.Adaptive adaptive = properties.getAdaptive();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxConcurrent = adaptive.getMaxConcurrentJobs() > 0 ? adaptive.getMaxConcurrentJobs() : cores;
+        double queuePressure = (jobs + backlog.getAsInt()) / (double) maxConcurrent;
+
+        double perFrameMillis = known(renderMillisPerMegapixel) + known(encodeMillisPerMegapixel);
+        double predictedSeconds = perFrameMillis * settings.pixelsPerFrame() / 1_000_000.0
+            * settings.frameCount() / 1000.0 * Math.max(1.0, jobs / (double) cores);
+        long targetSeconds = adaptive.getTargetJobSeconds() > 0
+            ? adaptive.getTargetJobSeconds()
+            : Math.max(1, properties.getVideo().getFfmpegTimeoutSeconds() / 2);
+        double timePressure = predictedSeconds / targetSeconds;
+
+        return Math.max(queuePressure, timePressure);
+    }
+
+    private static double millisPerMegapixel(RenderSettings settings, int frames, long nanos) {
+        double megapixels = Math.max(1, frames) * settings.pixelsPerFrame() / 1_000_000.0;
+        return TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0 / Math.max(megapixels, 1e-6);
+    }
+
+    private static double smooth(double current, double sample) {
+        return Double.isNaN(current) ? sample : current + SMOOTHING * (sample - current);
+    }
+
+    private static double known(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static int even(double value) {
+        return Math.max(2, ((int) Math.round(value)) & ~1);
+    }
+
+    public record Decision(RenderSettings settings, List<String> applied, double pressure) {
+    }
+
+    /**
+     * An admitted job's settings and its place in the in-flight count, which closing
+     * the ticket gives back.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final Decision decision;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Ticket(Decision decision) {
+            this.decision = decision;
+        }
+
+        public Decision decision() {
+            return decision;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
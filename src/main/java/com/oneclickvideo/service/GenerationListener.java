@@ -0,0 +1,38 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.encoding.VideoEncoder;
+
+import java.nio.file.Path;
+
+/**
+ * Follows one generation job as it runs. {@link #onProgress} is called on the
+ * encode thread after every frame; a listener that blocks there holds back the
+ * encoder and, through the frame spool, the renderers, which is how a slow
+ * streaming client slows its own job down instead of piling up output.
+ */
+public interface GenerationListener extends VideoEncoder.ProgressListener {
+
+    GenerationListener NONE = new GenerationListener() { };
+
+    /**
+     * Whether the listener wants to read the main output while it is written.
+     * Backends that can append to it ({@link VideoEncoder#streamable()}) then write
+     * it in a form that is valid at every point, such as fragmented MP4.
+     */
+    default boolean streamsOutput() {
+        return false;
+    }
+
+    /**
+     * Called once before the first frame with the main output file, or {@code null}
+     * if the encoder writes none. With {@code growing} the file only ever grows
+     * while the job runs and may be read as it does; otherwise it is complete
+     * only when the job is.
+     */
+    default void onOutput(Path main, boolean growing) {
+    }
+
+    @Override
+    default void onProgress(int framesEncoded, int totalFrames) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.oneclickvideo.service;
+
+import java.time.Instant;
+
+/**
+ * Parameters for one video generation job.
+ *
+ * A request with a seed and a pinned {@code generatedAt} instant always renders
+ * bit-identical frames and the same filename for a given configuration; leave
+ * either unset to get a fresh random pick or the service clock's current time.
+ * {@code encoder} names an encoder backend; {@code null} uses the default.
+ * {@code listener} follows the job while it runs and never changes its output.
+ */
+public record GenerationRequest(Long seed, String contentId, Instant generatedAt, String encoder,
+                                GenerationListener listener) {
+
+    public GenerationRequest {
+        if (listener == null) {
+            listener = GenerationListener.NONE;
+        }
+    }
+
+    public GenerationRequest(Long seed, String contentId, Instant generatedAt) {
+        this(seed, contentId, generatedAt, null);
+    }
+
+    public GenerationRequest(Long seed, String contentId, Instant generatedAt, String encoder) {
+        this(seed, contentId, generatedAt, encoder, null);
+    }
+
+    public static GenerationRequest random() {
+        return new GenerationRequest(null, null, null);
+    }
+
+    public static GenerationRequest seeded(long seed) {
+        return new GenerationRequest(seed, null, null);
+    }
+
+    public GenerationRequest withContentId(String contentId) {
+        return new GenerationRequest(seed, contentId, generatedAt, encoder, listener);
+    }
+
+    public GenerationRequest at(Instant generatedAt) {
+        return new GenerationRequest(seed, contentId, generatedAt, encoder, listener);
+    }
+
+    public GenerationRequest withEncoder(String encoder) {
+        return new GenerationRequest(seed, contentId, generatedAt, encoder, listener);
+    }
+
+    public GenerationRequest withListener(GenerationListener listener) {
+        return new GenerationRequest(seed, contentId, generatedAt, encoder, listener);
+    }
+}
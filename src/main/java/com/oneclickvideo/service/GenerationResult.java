@@ -0,0 +1,32 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.tracing.ResourceUsage;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a generation job. The seed and content id are enough to
+ * request the same video again; {@code policyDecisions} lists any load-driven
+ * downgrades that made {@code settings} differ from the configured defaults.
+ * {@code outputs} maps each produced file by role: "main", renditions such as
+ * "720p", "poster" and "preview". {@code file} is {@code null} when the encoder
+ * writes no video, as the null sink does. {@code usage} is the job's resource
+ * accounting and trace id, or {@code null} when the job was not traced.
+ */
+public record GenerationResult(File file, String contentId, long seed, RenderSettings settings,
+                               List<String> policyDecisions, Map<String, File> outputs, ResourceUsage usage) {
+
+    /**
+     * Adds the time the job waited in the scheduler queue to its usage.
+     */
+    public GenerationResult queuedFor(long nanos) {
+        if (usage == null) {
+            return this;
+        }
+        return new GenerationResult(file, contentId, seed, settings, policyDecisions, outputs,
+            usage.withEarlierStage("queue", TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+}
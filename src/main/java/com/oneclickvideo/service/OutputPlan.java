@@ -0,0 +1,107 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every file one render fans out to. Extra outputs share the main video's base
+ * name and differ only after the first dot ({@code <base>.720p.mp4},
+ * {@code <base>.poster.jpg}, {@code <base>.preview.gif},
+ * {@code <base>.frames.ocvf}), so they can be grouped back to their job by name.
+ */
+record OutputPlan(Path main, List<Rendition> renditions, Path poster, Path preview, String previewFormat,
+                  int previewWidth, int previewSeconds, Path recording) {
+
+    static OutputPlan of(Path main, RenderSettings settings, OneClickVideoProperties.Outputs outputs) {
+        String baseName = VideoService.baseName(main);
+        Path dir = main.getParent();
+
+        List<Rendition> renditions = new ArrayList<>();
+        for (Integer height : outputs.getRenditionHeights()) {
+            if (height != null && height > 0 && height < settings.height()) {
+                renditions.add(new Rendition(height, dir.resolve(baseName + "." + height + "p.mp4")));
+            }
+        }
+
+        Path poster = outputs.isPoster() ? dir.resolve(baseName + ".poster.jpg") : null;
+        String previewFormat = "webp".equalsIgnoreCase(outputs.getPreviewFormat()) ? "webp" : "gif";
+        Path preview = outputs.isPreview() ? dir.resolve(baseName + ".preview." + previewFormat) : null;
+        Path recording = outputs.isRecording() ? dir.resolve(baseName + ".frames.ocvf") : null;
+
+        return new OutputPlan(main, List.copyOf(renditions), poster, preview, previewFormat,
+            outputs.getPreviewWidth(), Math.max(1, outputs.getPreviewSeconds()), recording);
+    }
+
+    /**
+     * The same plan limited to the main video and the in-process poster and
+     * recording, for encoders that cannot produce scaled renditions or a preview.
+     */
+    OutputPlan withoutDerivedStreams() {
+        return new OutputPlan(main, List.of(), poster, null, previewFormat, previewWidth, previewSeconds, recording);
+    }
+
+    /**
+     * The same plan without the frame recording, for when the main output already is one.
+     */
+    OutputPlan withoutRecording() {
+        return new OutputPlan(main, renditions, poster, preview, previewFormat, previewWidth, previewSeconds, null);
+    }
+
+    /**
+     * Number of streams FFmpeg has to produce from the decoded frames.
+     */
+    int encoderBranches() {
+        return 1 + renditions.size() + (preview != null ? 1 : 0);
+    }
+
+    List<Path> files() {
+        List<Path> files = new ArrayList<>();
+        files.add(main);
+        renditions.forEach(rendition -> files.add(rendition.path()));
+        if (poster != null) {
+            files.add(poster);
+        }
+        if (preview != null) {
+            files.add(preview);
+        }
+        if (recording != null) {
+            files.add(recording);
+        }
+        return files;
+    }
+
+    /**
+     * Files the encoder writes: everything except the poster and the recording.
+     */
+    List<Path> encodedFiles() {
+        List<Path> files = files();
+        files.remove(poster);
+        files.remove(recording);
+        return files;
+    }
+
+    Map<String, File> asMap() {
+        Map<String, File> outputs = new LinkedHashMap<>();
+        outputs.put("main", main.toFile());
+        renditions.forEach(rendition -> outputs.put(rendition.height() + "p", rendition.path().toFile()));
+        if (poster != null) {
+            outputs.put("poster", poster.toFile());
+        }
+        if (preview != null) {
+            outputs.put("preview", preview.toFile());
+        }
+        if (recording != null) {
+            outputs.put("recording", recording.toFile());
+        }
+        return outputs;
+    }
+
+    record Rendition(int height, Path path) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+
+/**
+ * Resolution, length, frame rate and encoder preset for one job, as decided at admission.
+ */
+public record RenderSettings(int width, int height, int duration, int frameRate, String preset) {
+
+    public static RenderSettings from(OneClickVideoProperties.Video videoProps) {
+        return new RenderSettings(videoProps.getWidth(), videoProps.getHeight(), videoProps.getDuration(),
+            Math.max(1, videoProps.getFrameRate()), videoProps.getPreset());
+    }
+
+    public long pixelsPerFrame() {
+        return (long) width * height;
+    }
+
+    public int frameCount() {
+        return duration * frameRate;
+    }
+
+    RenderSettings withPreset(String preset) {
+        return new RenderSettings(width, height, duration, frameRate, preset);
+    }
+
+    RenderSettings withSize(int width, int height) {
+        return new RenderSettings(width, height, duration, frameRate, preset);
+    }
+
+    RenderSettings withDuration(int duration) {
+        return new RenderSettings(width, height, duration, frameRate, preset);
+    }
+}
@@ -0,0 +1,256 @@
+package com.oneclickvideo.service;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.FontMetrics;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The animation of one job, laid out once before rendering. Each second is a
+ * keyframe: the story shows an eight-word window that starts moving after a
+ * five-second lead-in and advances one word per second. Between keyframes the
+ * window scrolls up one line with an ease-in-out curve during the last
+ * {@code scrollSeconds}, the leaving word fading out and the next one fading in.
+ *
+ * <p>Consecutive frames that would look the same (the lead-in, the pause before
+ * each scroll, and scroll steps smaller than a pixel) form one {@link Segment}
+ * that is rendered once. Everything that never changes is drawn once into a
+ * background layer, and each {@link Painter} keeps its own glyph runs, so a
+ * rendered frame costs a raster copy plus a dozen short text runs. At one frame
+ * per second every frame is exactly the keyframe the renderer always produced.
+ */
+final class StoryTimeline {
+
+    static final int LEAD_IN_SECONDS = 5;
+    static final int VISIBLE_WORDS = 8;
+    static final int LINE_HEIGHT = 40;
+
+    private static final DateTimeFormatter OVERLAY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String SAFETY_TEXT = "Safety First! Always wear protective gear!";
+    private static final Color SAFETY_COLOR = new Color(255, 255, 0);
+
+    private final RenderSettings settings;
+    private final boolean safetyFocused;
+    private final String[] words;
+    private final String timestamp;
+    private final int storyTop;
+    private final int[] background;
+    private final List<Segment> segments;
+
+    private StoryTimeline(VideoScript script, RenderSettings settings, boolean safetyFocused, double scrollSeconds) {
+        this.settings = settings;
+        this.safetyFocused = safetyFocused;
+        this.words = script.story().split(" ");
+        this.timestamp = "Generated: " + script.generatedAt().format(OVERLAY_TIMESTAMP);
+        this.storyTop = Math.max(280, settings.height() / 3);
+        this.background = background(script, settings);
+        this.segments = segments(settings, words.length, scrollSeconds);
+    }
+
+    static StoryTimeline layout(VideoScript script, RenderSettings settings, boolean safetyFocused,
+                                double scrollSeconds) {
+        return new StoryTimeline(script, settings, safetyFocused, scrollSeconds);
+    }
+
+    int frameCount() {
+        return settings.frameCount();
+    }
+
+    /**
+     * Runs of identical frames in order; together they cover every frame once.
+     */
+    List<Segment> segments() {
+        return segments;
+    }
+
+    Segment segmentOf(int frame) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).firstFrame() <= frame) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return segments.get(low);
+    }
+
+    /**
+     * A new painter with its own frame buffer and glyph caches; painters are not
+     * thread-safe, so each render thread uses its own.
+     */
+    Painter painter() {
+        return new Painter();
+    }
+
+    /**
+     * What a run of frames shows: the keyframe second (for the frame counter), the
+     * first word of the story window and how many pixels the window has scrolled
+     * towards the next keyframe.
+     */
+    record Segment(int firstFrame, int length, int second, int firstWord, int scrollPixels) {
+    }
+
+    /**
+     * How many frames a story of {@code wordCount} words renders, without laying it out.
+     */
+    static int distinctFrames(RenderSettings settings, int wordCount, double scrollSeconds) {
+        return segments(settings, wordCount, scrollSeconds).size();
+    }
+
+    private static List<Segment> segments(RenderSettings settings, int wordCount, double scrollSeconds) {
+        int fps = settings.frameRate();
+        int scrollFrames = Math.max(1, Math.min(fps, (int) Math.round(scrollSeconds * fps)));
+        List<Segment> segments = new ArrayList<>();
+        Segment current = null;
+        for (int frame = 0; frame < settings.frameCount(); frame++) {
+            int second = frame / fps;
+            int firstWord = window(second);
+            int scroll = 0;
+            int scrollStart = fps - scrollFrames;
+            int intoSecond = frame - second * fps;
+            if (window(second + 1) > firstWord && firstWord < wordCount && intoSecond > scrollStart) {
+                scroll = (int) Math.round(LINE_HEIGHT * ease((intoSecond - scrollStart) / (double) scrollFrames));
+            }
+            if (current != null && current.second() == second && current.firstWord() == firstWord
+                && current.scrollPixels() == scroll) {
+                current = new Segment(current.firstFrame(), current.length() + 1, second, firstWord, scroll);
+                segments.set(segments.size() - 1, current);
+            } else {
+                current = new Segment(frame, 1, second, firstWord, scroll);
+                segments.add(current);
+            }
+        }
+        return List.copyOf(segments);
+    }
+
+    private static int window(int second) {
+        return Math.max(0, second - LEAD_IN_SECONDS);
+    }
+
+    private static double ease(double t) {
+        return t < 0.5 ? 4 * t * t * t : 1 - Math.pow(-2 * t + 2, 3) / 2;
+    }
+
+    private static int[] background(VideoScript script, RenderSettings settings) {
+        int width = settings.width();
+        int height = settings.height();
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = graphics(layer);
+
+        g2d.setPaint(new GradientPaint(
+            0, 0, new Color(135, 206, 235),
+            width, height, new Color(70, 130, 180)
+        ));
+        g2d.fillRect(0, 0, width, height);
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(VideoService.CHANNEL_FONT);
+        g2d.drawString(script.channelName(), 50, 100);
+
+        g2d.setFont(VideoService.TITLE_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        int titleWidth = fm.stringWidth(script.title());
+        g2d.drawString(script.title(), Math.max(40, (width - titleWidth) / 2), 200);
+        g2d.dispose();
+        return ((DataBufferInt) layer.getRaster().getDataBuffer()).getData();
+    }
+
+    private static Graphics2D graphics(BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g2d;
+    }
+
+    final class Painter {
+
+        private final BufferedImage frame;
+        private final int[] pixels;
+        private final Graphics2D g2d;
+        private final FontRenderContext frc;
+        private final Composite opaque;
+        private final GlyphVector[] wordGlyphs = new GlyphVector[words.length];
+        private final GlyphVector safetyGlyphs;
+        private final GlyphVector timestampGlyphs;
+        private GlyphVector counterGlyphs;
+        private int counterSecond = -1;
+
+        private Painter() {
+            this.frame = new BufferedImage(settings.width(), settings.height(), BufferedImage.TYPE_INT_RGB);
+            this.pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+            this.g2d = graphics(frame);
+            this.frc = g2d.getFontRenderContext();
+            this.opaque = g2d.getComposite();
+            this.safetyGlyphs = VideoService.SAFETY_FONT.createGlyphVector(frc, SAFETY_TEXT);
+            this.timestampGlyphs = VideoService.FOOTER_FONT.createGlyphVector(frc, timestamp);
+        }
+
+        /**
+         * Paints {@code segment} and returns the painter's frame buffer, which the
+         * next call overwrites.
+         */
+        BufferedImage paint(Segment segment) {
+            int width = settings.width();
+            int height = settings.height();
+            System.arraycopy(background, 0, pixels, 0, pixels.length);
+
+            g2d.setColor(Color.WHITE);
+            int first = segment.firstWord();
+            int scroll = segment.scrollPixels();
+            int last = Math.min(words.length, first + VISIBLE_WORDS + (scroll > 0 ? 1 : 0));
+            for (int i = first; i < last; i++) {
+                float alpha = 1f;
+                if (i == first) {
+                    alpha = 1f - scroll / (float) LINE_HEIGHT;
+                } else if (i == first + VISIBLE_WORDS) {
+                    alpha = scroll / (float) LINE_HEIGHT;
+                }
+                if (alpha <= 0f) {
+                    continue;
+                }
+                g2d.setComposite(alpha < 1f ? AlphaComposite.SrcOver.derive(alpha) : opaque);
+                g2d.drawGlyphVector(word(i), 100, storyTop + (i - first) * LINE_HEIGHT - scroll);
+            }
+            g2d.setComposite(opaque);
+
+            if (safetyFocused) {
+                g2d.setColor(SAFETY_COLOR);
+                g2d.drawGlyphVector(safetyGlyphs, 100, height - 280);
+            }
+
+            g2d.setColor(Color.WHITE);
+            g2d.drawGlyphVector(counter(segment.second()), 50, height - 30);
+            g2d.drawGlyphVector(timestampGlyphs, Math.max(50, width - 420), height - 30);
+            return frame;
+        }
+
+        private GlyphVector word(int index) {
+            if (wordGlyphs[index] == null) {
+                wordGlyphs[index] = VideoService.STORY_FONT.createGlyphVector(frc, words[index]);
+            }
+            return wordGlyphs[index];
+        }
+
+        private GlyphVector counter(int second) {
+            if (second != counterSecond) {
+                counterGlyphs = VideoService.FOOTER_FONT.createGlyphVector(frc,
+                    "Frame " + (second + 1) + "/" + settings.duration());
+                counterSecond = second;
+            }
+            return counterGlyphs;
+        }
+    }
+}
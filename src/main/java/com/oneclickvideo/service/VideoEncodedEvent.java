@@ -0,0 +1,9 @@
+package com.oneclickvideo.service;
+
+import java.nio.file.Path;
+
+/**
+ * Published once FFmpeg has produced a video, so housekeeping can run off the request path.
+ */
+public record VideoEncodedEvent(Path video, Path framesDir) {
+}
@@ -0,0 +1,10 @@
+package com.oneclickvideo.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything a frame shows that is fixed for the whole job. The timestamp is
+ * captured once per job so frames never straddle a clock tick.
+ */
+record VideoScript(String channelName, String title, String story, LocalDateTime generatedAt) {
+}
@@ -1,30 +1,48 @@
 package com.oneclickvideo.service;
 
 import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.content.CatalogEntry;
+import com.oneclickvideo.content.ContentCatalog;
+import com.oneclickvideo.content.ContentCatalogLoader;
+import com.oneclickvideo.encoding.DeltaFrameEncoder;
+import com.oneclickvideo.encoding.EncodeJob;
+import com.oneclickvideo.encoding.EncoderRegistry;
+import com.oneclickvideo.encoding.H264OutputArgs;
+import com.oneclickvideo.encoding.PngSequenceFFmpegEncoder;
+import com.oneclickvideo.encoding.VideoEncoder;
+import com.oneclickvideo.frames.FrameSpool;
+import com.oneclickvideo.tracing.JobTrace;
+import com.oneclickvideo.tracing.JobTracer;
+import jakarta.annotation.PreDestroy;
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import java.awt.Color;
 import java.awt.Font;
-import java.awt.FontMetrics;
-import java.awt.GradientPaint;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * Video Service for One Click Video Generator
@@ -35,213 +53,497 @@ import java.util.concurrent.TimeUnit;
 public class VideoService {
 
     private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String FRAMES_SUFFIX = "_frames";
 
-    private final List<String> ridingStories = Arrays.asList(
-        "Alex gears up for mountain trail adventure! Helmet on, knee pads secure. Safety first!",
-        "BMX tricks time! Watch our rider perform safe stunts with proper protective gear.",
-        "Forest trail challenge! Navigating rocks and roots while staying safe and having fun.",
-        "Pump track mastery! Using body weight to gain speed and maintain perfect balance.",
-        "Dirt jumping adventure! Controlled stunts with full safety equipment and smooth landings.",
-        "Urban bike skills! City riding with ramps, stairs, and safe trick performances.",
-        "Desert trail exploration! Sand dunes, cacti, and sunset riding with proper gear.",
-        "Coastal bike adventure! Cliffside trails with ocean views and safety first approach.",
-        "Night riding safety! Headlights, reflective gear, and proper trail navigation.",
-        "Mountain summit challenge! Uphill climb with determination and downhill thrill ride."
-    );
-
-    private final List<String> videoTitles = Arrays.asList(
-        "Epic Mountain Trail Adventure - Kids Bike Safety",
-        "BMX Tricks and Stunts - Safe Riding for Kids",
-        "Forest Trail Challenge - Mountain Biking Fun",
-        "Pump Track Mastery - Kids Bike Skills",
-        "Dirt Jumping Adventure - Safe Stunts for Kids",
-        "Urban Bike Tricks - City Riding Fun",
-        "Desert Trail Adventure - Kids Mountain Biking",
-        "Coastal Bike Adventure - Ocean Trail Fun",
-        "Night Riding Adventure - Kids Bike Safety",
-        "Mountain Summit Challenge - Kids Adventure"
-    );
+    static final Font CHANNEL_FONT = new Font("Arial", Font.BOLD, 36);
+    static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 48);
+    static final Font STORY_FONT = new Font("Arial", Font.PLAIN, 32);
+    static final Font SAFETY_FONT = new Font("Arial", Font.BOLD, 28);
+    static final Font FOOTER_FONT = new Font("Arial", Font.PLAIN, 24);
 
     private final OneClickVideoProperties properties;
-    private final Random random;
+    private final ContentCatalog catalog;
+    private final Clock clock;
+    private final ApplicationEventPublisher events;
+    private final AdaptiveLoadPolicy loadPolicy;
+    private final EncoderRegistry encoders;
+    private final JobTracer tracer;
+    private final int renderThreads;
+    private final ExecutorService renderPool;
+
+    @Autowired
+    public VideoService(OneClickVideoProperties properties, ContentCatalog catalog, Clock clock,
+                        ApplicationEventPublisher events, AdaptiveLoadPolicy loadPolicy, EncoderRegistry encoders,
+                        JobTracer tracer) {
+        this.properties = properties;
+        this.catalog = catalog;
+        this.clock = clock;
+        this.events = events;
+        this.loadPolicy = loadPolicy;
+        this.encoders = encoders;
+        this.tracer = tracer;
+        int configuredThreads = properties.getVideo().getRenderThreads();
+        this.renderThreads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(renderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "frame-renderer-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-    public VideoService(OneClickVideoProperties properties) {
-        this(properties, new Random());
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
     }
 
-    VideoService(OneClickVideoProperties properties, Random random) {
-        this.properties = properties;
-        this.random = random;
+    VideoService(OneClickVideoProperties properties, Clock clock) {
+        this(properties, defaultCatalog(), clock, event -> { }, new AdaptiveLoadPolicy(properties),
+            new EncoderRegistry(properties), new JobTracer(properties));
+    }
+
+    private static ContentCatalog defaultCatalog() {
+        try {
+            return ContentCatalogLoader.loadDefault();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public File generateRidingVideo() throws IOException {
+        return generate(GenerationRequest.random()).file();
+    }
+
+    /**
+     * Generates one video. All random choices come from a {@link SplittableRandom}
+     * owned by this job, seeded from the request when given, so concurrent jobs
+     * share no random state and a seeded request can be replayed exactly. The job
+     * is traced, and the resources it used come back with the result.
+     */
+    public GenerationResult generate(GenerationRequest request) throws IOException {
+        try (JobTrace trace = tracer.start("video.generate")) {
+            try {
+                return generate(request, trace);
+            } catch (IOException | RuntimeException e) {
+                trace.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    private GenerationResult generate(GenerationRequest request, JobTrace trace) throws IOException {
+        long started = System.nanoTime();
+        long seed = request.seed() != null ? request.seed() : ThreadLocalRandom.current().nextLong();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        VideoEncoder encoder = encoders.resolve(request.encoder());
+        CatalogEntry entry = content(request, random);
+        trace.span().setAttribute("video.content_id", entry.id());
+        trace.span().setAttribute("video.seed", seed);
+        trace.span().setAttribute("video.encoder", encoder.name());
+
         OneClickVideoProperties.Video videoProps = properties.getVideo();
         Path outputDir = Path.of(videoProps.getOutputDir()).normalize();
         Files.createDirectories(outputDir);
 
-        String title = videoTitles.get(random.nextInt(videoTitles.size()));
-        String story = ridingStories.get(random.nextInt(ridingStories.size()));
-        String filename = buildFilename(title);
-        Path outputPath = outputDir.resolve(filename);
+        Instant generatedAt = request.generatedAt() != null ? request.generatedAt() : clock.instant();
+        VideoScript script = new VideoScript(
+            entry.channelNameOr(properties.getContent().getChannelName()),
+            entry.title(),
+            entry.story(),
+            LocalDateTime.ofInstant(generatedAt, clock.getZone())
+        );
+        Path outputPath = reserveOutput(outputDir, baseName(Path.of(buildFilename(script))),
+            encoder.extension() != null ? encoder.extension() : "mp4");
 
-        System.out.println("Generating video: " + title);
-        System.out.println("Story: " + story);
+        System.out.println("Generating video: " + script.title() + " [" + entry.id() + ", seed " + seed + "]");
+        System.out.println("Story: " + script.story());
 
-        createVideoFile(outputPath, title, story);
-        return outputPath.toFile();
+        AdaptiveLoadPolicy.Ticket ticket;
+        try (JobTrace.Stage ignored = trace.stage("admission")) {
+            ticket = loadPolicy.admit();
+        }
+        AdaptiveLoadPolicy.Decision decision = ticket.decision();
+        OutputPlan plan;
+        try (ticket) {
+            if (!decision.applied().isEmpty()) {
+                System.out.println("Load policy applied: " + String.join(", ", decision.applied()));
+            }
+            RenderSettings settings = decision.settings();
+            trace.span().setAttribute("video.settings", settings.width() + "x" + settings.height() + ", " +
+                settings.duration() + "s, " + settings.preset());
+            plan = createVideoFile(outputPath, script, settings, encoder, request.listener(), trace);
+        }
+        System.out.println("Video generated in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) +
+            " ms with " + encoder.name());
+
+        Map<String, File> outputs = plan.asMap();
+        if (encoder.extension() == null) {
+            outputs.remove("main");
+        }
+        return new GenerationResult(encoder.extension() != null ? outputPath.toFile() : null, entry.id(), seed,
+            decision.settings(), decision.applied(), outputs, trace.finish());
     }
 
-    private String buildFilename(String title) {
-        String sanitizedTitle = title.replaceAll("[^a-zA-Z0-9\\s-]", "").trim().replaceAll("\\s+", "-");
-        String timestamp = LocalDateTime.now().format(FILE_TIMESTAMP);
-        return sanitizedTitle + "-" + timestamp + ".mp4";
+    /**
+     * The channel a request's video is published on, and so the tenant its job is
+     * billed to. A request without a content id must carry a seed: the random pick
+     * is then the same one {@link #generate} makes.
+     *
+     * @throws IllegalArgumentException if the content id is unknown
+     */
+    public String channelOf(GenerationRequest request) {
+        return contentAhead(request).channelNameOr(properties.getContent().getChannelName());
     }
 
-    private void createVideoFile(Path filePath, String title, String story) throws IOException {
-        List<BufferedImage> frames = new ArrayList<>();
-        int frameCount = properties.getVideo().getDuration();
+    /**
+     * What a request is expected to cost in megapixels: its distinct frames rendered
+     * at the settings the load policy would give it now, plus every frame of each
+     * video its encoder writes, scaled renditions included. Longer stories render
+     * more frames, and the {@code null} encoder writes none. The content is resolved
+     * as in {@link #channelOf}.
+     *
+     * @throws IllegalArgumentException if the content id or encoder is unknown
+     */
+    public double costOf(GenerationRequest request) {
+        CatalogEntry entry = contentAhead(request);
+        VideoEncoder encoder = encoders.resolve(request.encoder());
+        RenderSettings settings = loadPolicy.decide().settings();
+
+        double pixels = settings.pixelsPerFrame();
+        double rendered = pixels * StoryTimeline.distinctFrames(settings, entry.story().split(" ").length,
+            properties.getVideo().getScrollSeconds());
+        double encodedPerFrame = 0;
+        if (encoder.extension() != null) {
+            encodedPerFrame = pixels;
+            if (encoder.derivedOutputs()) {
+                for (Integer height : properties.getOutputs().getRenditionHeights()) {
+                    if (height != null && height > 0 && height < settings.height()) {
+                        encodedPerFrame += pixels * height * height / ((double) settings.height() * settings.height());
+                    }
+                }
+            }
+        }
+        return (rendered + encodedPerFrame * settings.frameCount()) / 1_000_000.0;
+    }
 
-        for (int i = 0; i < frameCount; i++) {
-            frames.add(createFrame(title, story, i, frameCount));
+    /**
+     * The entry {@link #generate} will pick for a request before it runs. A request
+     * without a content id must carry a seed for its random pick to be known.
+     */
+    private CatalogEntry contentAhead(GenerationRequest request) {
+        boolean random = request.contentId() == null || request.contentId().isBlank();
+        if (random && request.seed() == null) {
+            throw new IllegalStateException("Randomly picked content needs a seed to be resolved ahead of time");
         }
+        return content(request, random ? new SplittableRandom(request.seed()) : null);
+    }
 
-        saveFramesAndEncodeVideo(frames, filePath);
+    /**
+     * Must be the first draw from the job's random source, so {@link #contentAhead}
+     * resolves the same entry.
+     */
+    private CatalogEntry content(GenerationRequest request, SplittableRandom random) {
+        return request.contentId() == null || request.contentId().isBlank()
+            ? catalog.weighted(random)
+            : catalog.findById(request.contentId())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown content id: " + request.contentId()));
     }
 
-    private BufferedImage createFrame(String title, String story, int frameNumber, int frameCount) {
-        OneClickVideoProperties.Video videoProps = properties.getVideo();
-        int width = videoProps.getWidth();
-        int height = videoProps.getHeight();
+    static String baseName(Path file) {
+        return file.getFileName().toString().replaceFirst("\\.[^.]+$", "");
+    }
 
-        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = frame.createGraphics();
+    /**
+     * Claims an output name by creating its frames directory. Two jobs for the same
+     * title in the same second would otherwise share frames and outputs, and the
+     * first to finish would delete the other's frames; later ones get a numeric suffix.
+     */
+    private static Path reserveOutput(Path outputDir, String baseName, String extension) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            String name = attempt == 0 ? baseName : baseName + "-" + attempt;
+            Path output = outputDir.resolve(name + "." + extension);
+            if (Files.exists(output)) {
+                continue;
+            }
+            try {
+                Files.createDirectory(outputDir.resolve(name + FRAMES_SUFFIX));
+                return output;
+            } catch (FileAlreadyExistsException e) {
+                // Another running job holds this name.
+            }
+        }
+    }
 
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    static String buildFilename(VideoScript script) {
+        String sanitizedTitle = script.title().replaceAll("[^a-zA-Z0-9\\s-]", "").trim().replaceAll("\\s+", "-");
+        String timestamp = script.generatedAt().format(FILE_TIMESTAMP);
+        return sanitizedTitle + "-" + timestamp + ".mp4";
+    }
 
-        GradientPaint gradient = new GradientPaint(
-            0, 0, new Color(135, 206, 235),
-            width, height, new Color(70, 130, 180)
-        );
-        g2d.setPaint(gradient);
-        g2d.fillRect(0, 0, width, height);
+    private OutputPlan createVideoFile(Path filePath, VideoScript script, RenderSettings settings,
+                                       VideoEncoder encoder, GenerationListener listener, JobTrace trace)
+        throws IOException {
+        Path framesDir = filePath.getParent().resolve(baseName(filePath) + FRAMES_SUFFIX);
+        Files.createDirectories(framesDir);
 
-        g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 36));
-        g2d.drawString(properties.getContent().getChannelName(), 50, 100);
+        int frameCount = settings.frameCount();
+        OutputPlan plan = OutputPlan.of(filePath, settings, properties.getOutputs());
+        if (!encoder.derivedOutputs()) {
+            plan = plan.withoutDerivedStreams();
+        }
+        if (DeltaFrameEncoder.NAME.equals(encoder.name())) {
+            plan = plan.withoutRecording();
+        }
+        boolean streaming = listener.streamsOutput() && encoder.streamable();
+        EncodeJob job = new EncodeJob(framesDir, settings.width(), settings.height(), frameCount,
+            settings.frameRate(), plan.main(), encoder.extension() != null ? plan.encodedFiles() : List.of(),
+            ffmpegOutputArgs(plan, settings, streaming));
+        listener.onOutput(encoder.extension() != null ? plan.main() : null, streaming);
+
+        long started = System.nanoTime();
+        StoryTimeline timeline;
+        try (JobTrace.Stage ignored = trace.stage("layout")) {
+            timeline = timeline(script, settings);
+        }
+        int slots = Math.max(1, Math.min(timeline.segments().size(), properties.getVideo().getSpoolSlots()));
+        long renderNanos;
+        boolean encoded = false;
+        Path spoolFile = Files.createTempFile(framesDir, "frames-", ".spool");
+        try (FrameSpool spool = FrameSpool.create(spoolFile, settings.width(), settings.height(), slots);
+             VideoEncoder.Session session = open(encoder, job, plan, listener)) {
+            CompletableFuture<Long> rendered = renderFrames(spool, timeline, trace);
+            BufferedImage posterFrame;
+            try (JobTrace.Stage ignored = trace.stage("encode");
+                 JobTrace.ThreadMeter meter = trace.meterEncodeThread()) {
+                posterFrame = encodeFrames(spool, session, timeline);
+            }
+            renderNanos = rendered.join();
+            loadPolicy.recordRender(settings, frameCount, renderNanos);
+
+            try (JobTrace.ThreadMeter meter = trace.meterEncodeThread()) {
+                if (plan.poster() != null) {
+                    try (JobTrace.Stage ignored = trace.stage("poster")) {
+                        writePoster(posterFrame, plan.poster());
+                    }
+                }
+                try (JobTrace.Stage ignored = trace.stage("finish")) {
+                    session.finish();
+                }
+            }
+            trace.recordEncoderProcess(session.processUsage());
+            trace.recordDiskBytesWritten(bytesWritten(framesDir, plan));
+            encoded = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering frames.", e);
+        } catch (CompletionException e) {
+            throw new IOException("Frame rendering failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Whatever went wrong, no partial output outlives the job.
+            if (!encoded) {
+                deleteOutputs(plan);
+            }
+        }
+        // Rendering overlaps encoding, so only the time beyond it is charged to the encoder.
+        loadPolicy.recordEncode(settings, frameCount, Math.max(0, System.nanoTime() - started - renderNanos));
+        events.publishEvent(new VideoEncodedEvent(filePath, framesDir));
 
-        g2d.setFont(new Font("Arial", Font.BOLD, 48));
-        FontMetrics fm = g2d.getFontMetrics();
-        int titleWidth = fm.stringWidth(title);
-        g2d.drawString(title, Math.max(40, (width - titleWidth) / 2), 200);
+        System.out.println("Video file created: " + filePath);
+        System.out.println("Frames generated: " + frameCount);
+        return plan;
+    }
 
-        g2d.setFont(new Font("Arial", Font.PLAIN, 32));
-        String[] words = story.split(" ");
-        int startWord = Math.max(0, frameNumber - 5);
-        int endWord = Math.min(words.length, startWord + 8);
+    private static VideoEncoder.Session open(VideoEncoder encoder, EncodeJob job, OutputPlan plan,
+                                             GenerationListener listener) throws IOException {
+        VideoEncoder.Session session = encoder.open(job, listener);
+        return plan.recording() != null ? DeltaFrameEncoder.recording(session, plan.recording(), job) : session;
+    }
 
-        int y = Math.max(280, height / 3);
-        for (int i = startWord; i < endWord; i++) {
-            g2d.drawString(words[i], 100, y);
-            y += 40;
+    private static void deleteOutputs(OutputPlan plan) {
+        for (Path file : plan.files()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete partial output " + file + ": " + e.getMessage());
+            }
         }
+    }
 
-        if (properties.getContent().isSafetyFocused()) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 28));
-            g2d.setColor(new Color(255, 255, 0));
-            g2d.drawString("Safety First! Always wear protective gear!", 100, height - 280);
+    /**
+     * Sizes of everything the job has on disk before the spool goes away: the
+     * spool, any intermediate frames, and the encoded outputs.
+     */
+    private static long bytesWritten(Path framesDir, OutputPlan plan) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.walk(framesDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                bytes += Files.size(file);
+            }
         }
-
-        g2d.setFont(new Font("Arial", Font.PLAIN, 24));
-        g2d.setColor(Color.WHITE);
-        g2d.drawString("Frame " + (frameNumber + 1) + "/" + frameCount, 50, height - 30);
-
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-        g2d.drawString("Generated: " + timestamp, Math.max(50, width - 420), height - 30);
-
-        g2d.dispose();
-        return frame;
+        for (Path file : plan.files()) {
+            if (Files.isRegularFile(file)) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
     }
 
-    private void saveFramesAndEncodeVideo(List<BufferedImage> frames, Path filePath) throws IOException {
-        String baseName = filePath.getFileName().toString().replaceFirst("\\.mp4$", "");
-        Path framesDir = filePath.getParent().resolve(baseName + "_frames");
-        Files.createDirectories(framesDir);
+    /**
+     * Renders the timeline's segments on the render pool straight into the spool,
+     * one spool frame per segment. Workers claim segments in order but finish out of
+     * order; the spool holds each one until the writer gets to it. Completes with the
+     * wall time spent rendering.
+     */
+    private CompletableFuture<Long> renderFrames(FrameSpool spool, StoryTimeline timeline, JobTrace trace) {
+        JobTrace.Stage stage = trace.stage("render");
+        long started = System.nanoTime();
+        List<StoryTimeline.Segment> segments = timeline.segments();
+        AtomicInteger nextSegment = new AtomicInteger();
+        int workers = Math.min(segments.size(), Math.min(renderThreads, spool.slots()));
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            tasks[w] = CompletableFuture.runAsync(() -> {
+                // A failed renderer aborts the spool at once; the writer and the other
+                // renderers would otherwise wait forever for its frame or slot.
+                try (JobTrace.ThreadMeter meter = trace.meterRenderThread()) {
+                    StoryTimeline.Painter painter = timeline.painter();
+                    for (int i = nextSegment.getAndIncrement(); i < segments.size();
+                         i = nextSegment.getAndIncrement()) {
+                        spool.write(i, painter.paint(segments.get(i)));
+                    }
+                } catch (IOException e) {
+                    spool.fail(e);
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spool.fail(e);
+                    throw new CompletionException(e);
+                } catch (RuntimeException | Error e) {
+                    spool.fail(e);
+                    throw e;
+                }
+            }, renderPool);
+        }
+        return CompletableFuture.allOf(tasks)
+            .whenComplete((ignored, error) -> stage.close())
+            .thenApply(ignored -> System.nanoTime() - started);
+    }
 
-        for (int i = 0; i < frames.size(); i++) {
-            Path framePath = framesDir.resolve("frame_" + String.format("%03d", i) + ".png");
-            ImageIO.write(frames.get(i), "PNG", framePath.toFile());
+    /**
+     * Drains the spool in segment order into the encoder, repeating each segment's
+     * frame for its length, and keeps the middle frame for the poster.
+     */
+    private BufferedImage encodeFrames(FrameSpool spool, VideoEncoder.Session session, StoryTimeline timeline)
+        throws IOException, InterruptedException {
+        BufferedImage frame = new BufferedImage(spool.width(), spool.height(), BufferedImage.TYPE_INT_RGB);
+        BufferedImage posterFrame = null;
+        int posterIndex = timeline.frameCount() / 2;
+        for (StoryTimeline.Segment segment : timeline.segments()) {
+            spool.readInto(frame);
+            session.writeFrame(frame);
+            for (int i = 1; i < segment.length(); i++) {
+                session.repeatFrame(frame);
+            }
+            if (posterIndex >= segment.firstFrame() && posterIndex < segment.firstFrame() + segment.length()) {
+                posterFrame = frame;
+                frame = new BufferedImage(spool.width(), spool.height(), BufferedImage.TYPE_INT_RGB);
+            }
         }
+        return posterFrame;
+    }
+
+    ContentCatalog catalog() {
+        return catalog;
+    }
 
-        createVideoWithFFmpeg(framesDir, filePath);
+    /**
+     * Renders one frame on its own, laying out the whole timeline first; jobs lay it
+     * out once and render each distinct frame once.
+     */
+    BufferedImage createFrame(VideoScript script, RenderSettings settings, int frameNumber) {
+        StoryTimeline timeline = timeline(script, settings);
+        return timeline.painter().paint(timeline.segmentOf(frameNumber));
+    }
 
-        System.out.println("Video file created: " + filePath);
-        System.out.println("Frame images saved to: " + framesDir);
-        System.out.println("Frames generated: " + frames.size());
+    private StoryTimeline timeline(VideoScript script, RenderSettings settings) {
+        return StoryTimeline.layout(script, settings, properties.getContent().isSafetyFocused(),
+            properties.getVideo().getScrollSeconds());
     }
 
-    private void createVideoWithFFmpeg(Path framesDir, Path outputPath) throws IOException {
-        OneClickVideoProperties.Video videoProps = properties.getVideo();
-        ProcessBuilder pb = new ProcessBuilder(
-            videoProps.getFfmpegCommand(),
-            "-y",
-            "-framerate", "1",
-            "-i", framesDir.resolve("frame_%03d.png").toString(),
-            "-c:v", "libx264",
-            "-pix_fmt", "yuv420p",
-            "-crf", "23",
-            "-preset", "medium",
-            outputPath.toString()
-        );
-        pb.redirectErrorStream(true);
+    /**
+     * The PNG-sequence FFmpeg invocation for {@code plan}.
+     */
+    List<String> ffmpegCommand(Path framesDir, OutputPlan plan, RenderSettings settings) {
+        List<String> command = PngSequenceFFmpegEncoder.inputArgs(properties.getVideo().getFfmpegCommand(),
+            framesDir, settings.frameRate());
+        command.addAll(ffmpegOutputArgs(plan, settings));
+        return command;
+    }
 
-        System.out.println("Creating video with FFmpeg...");
-        System.out.println("Input frames: " + framesDir);
-        System.out.println("Output video: " + outputPath);
+    /**
+     * FFmpeg output arguments that take the decoded frames once and, through a
+     * {@code split} filter graph, encode the main video, every scaled rendition
+     * and the animated preview in the same pass.
+     */
+    static List<String> ffmpegOutputArgs(OutputPlan plan, RenderSettings settings) {
+        return ffmpegOutputArgs(plan, settings, false);
+    }
 
-        Process process;
-        try {
-            process = pb.start();
-        } catch (IOException e) {
-            throw new IOException(
-                "FFmpeg is required to generate MP4 output. Configure one-click-video.video.ffmpeg-command " +
-                    "or install ffmpeg on the server PATH.",
-                e
-            );
-        }
-
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
-        )) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append(System.lineSeparator());
-                System.out.println("FFmpeg: " + line);
-            }
+    /**
+     * As {@link #ffmpegOutputArgs(OutputPlan, RenderSettings)}; with {@code fragmented}
+     * the main video is written as fragmented MP4, whose file is playable and only
+     * appended to at every point, so it can be streamed while FFmpeg writes it.
+     */
+    static List<String> ffmpegOutputArgs(OutputPlan plan, RenderSettings settings, boolean fragmented) {
+        List<String> command = new ArrayList<>();
+
+        if (plan.encoderBranches() == 1) {
+            H264OutputArgs.add(command, null, settings.preset(), fragmented, plan.main());
+            return command;
         }
 
-        boolean finished;
-        try {
-            finished = process.waitFor(videoProps.getFfmpegTimeoutSeconds(), TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            process.destroyForcibly();
-            throw new IOException("Interrupted while waiting for FFmpeg to finish.", e);
+        StringBuilder graph = new StringBuilder("[0:v]split=").append(plan.encoderBranches()).append("[main]");
+        for (int i = 0; i < plan.renditions().size(); i++) {
+            graph.append("[r").append(i).append(']');
         }
-
-        if (!finished) {
-            process.destroyForcibly();
-            throw new IOException("FFmpeg timed out after " + videoProps.getFfmpegTimeoutSeconds() + " seconds.");
+        if (plan.preview() != null) {
+            graph.append("[pv]");
         }
-
-        if (process.exitValue() != 0) {
-            throw new IOException("FFmpeg failed with exit code " + process.exitValue() + "." +
-                System.lineSeparator() + output);
+        for (int i = 0; i < plan.renditions().size(); i++) {
+            graph.append(";[r").append(i).append("]scale=-2:").append(plan.renditions().get(i).height())
+                .append("[r").append(i).append("out]");
+        }
+        if (plan.preview() != null) {
+            graph.append(";[pv]scale=").append(plan.previewWidth()).append(":-2:flags=lanczos");
+            if ("gif".equals(plan.previewFormat())) {
+                graph.append(",split[pva][pvb];[pva]palettegen[pal];[pvb][pal]paletteuse");
+            }
+            graph.append("[pvout]");
         }
+        command.add("-filter_complex");
+        command.add(graph.toString());
 
-        if (!Files.exists(outputPath) || Files.size(outputPath) == 0) {
-            throw new IOException("FFmpeg reported success but no video file was created.");
+        H264OutputArgs.add(command, "[main]", settings.preset(), fragmented, plan.main());
+        for (int i = 0; i < plan.renditions().size(); i++) {
+            H264OutputArgs.add(command, "[r" + i + "out]", settings.preset(), false, plan.renditions().get(i).path());
+        }
+        if (plan.preview() != null) {
+            command.addAll(List.of("-map", "[pvout]", "-t", Integer.toString(plan.previewSeconds())));
+            if ("webp".equals(plan.previewFormat())) {
+                command.addAll(List.of("-c:v", "libwebp", "-quality", "75"));
+            }
+            command.addAll(List.of("-loop", "0", plan.preview().toString()));
         }
+        return command;
+    }
+
+    private void writePoster(BufferedImage frame, Path posterPath) throws IOException {
+        OneClickVideoProperties.Outputs outputs = properties.getOutputs();
+        Thumbnails.of(frame)
+            .width(Math.min(outputs.getPosterWidth(), frame.getWidth()))
+            .outputFormat("jpg")
+            .outputQuality(outputs.getPosterQuality())
+            .toFile(posterPath.toFile());
     }
 }
@@ -0,0 +1,144 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.content.CatalogEntry;
+import com.oneclickvideo.encoding.FFmpegProbe;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup warm-up for One Click Video Generator
+ *
+ * Pays the one-off costs of the first /create (Java2D and font initialization,
+ * ImageIO plugin scanning, JIT of the frame renderer, first FFmpeg spawn) before
+ * the application reports itself ready. Spring Boot only publishes
+ * {@link ReadinessState#ACCEPTING_TRAFFIC} after all runners complete, so the
+ * readiness probe stays down until this has finished.
+ */
+@Component("warmup")
+public class WarmupRunner implements ApplicationRunner, HealthIndicator {
+
+    private final VideoService videoService;
+    private final OneClickVideoProperties properties;
+    private final ConfigurableApplicationContext context;
+    private final Clock clock;
+
+    private volatile boolean warm;
+    private volatile String ffmpegVersion;
+    private volatile long coldFrameMillis = -1;
+    private volatile long warmFrameMillis = -1;
+
+    public WarmupRunner(VideoService videoService, OneClickVideoProperties properties,
+                        ConfigurableApplicationContext context, Clock clock) {
+        this.videoService = videoService;
+        this.properties = properties;
+        this.context = context;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        OneClickVideoProperties.Warmup warmupProps = properties.getWarmup();
+        if (!warmupProps.isEnabled()) {
+            warm = true;
+            return;
+        }
+
+        AvailabilityChangeEvent.publish(context, this, ReadinessState.REFUSING_TRAFFIC);
+        long started = System.nanoTime();
+        System.out.println("Warming up video pipeline...");
+
+        resolveFonts();
+        renderFrames(Math.max(1, warmupProps.getFrames()));
+        if (warmupProps.isProbeFfmpeg()) {
+            probeFfmpeg(warmupProps.getFfmpegProbeTimeoutSeconds());
+        }
+
+        warm = true;
+        System.out.println("Warm-up finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) +
+            " ms (first frame " + coldFrameMillis + " ms, last frame " + warmFrameMillis + " ms)");
+
+        if (warmupProps.isExitWhenDone()) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void resolveFonts() {
+        GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames();
+        Font font = VideoService.TITLE_FONT;
+        if (!font.getFamily().equalsIgnoreCase(font.getName())) {
+            System.out.println("Font '" + font.getName() + "' not installed, falling back to " + font.getFamily());
+        }
+    }
+
+    private void renderFrames(int frameCount) {
+        ImageIO.scanForPlugins();
+        CatalogEntry entry = videoService.catalog().get(0);
+        VideoScript script = new VideoScript(entry.channelNameOr(properties.getContent().getChannelName()),
+            entry.title(), entry.story(), LocalDateTime.now(clock));
+
+        RenderSettings settings = RenderSettings.from(properties.getVideo()).withDuration(frameCount);
+
+        for (int i = 0; i < frameCount; i++) {
+            long frameStarted = System.nanoTime();
+            BufferedImage frame = videoService.createFrame(script, settings, i);
+            try {
+                ImageIO.write(frame, "PNG", new ByteArrayOutputStream());
+            } catch (IOException e) {
+                System.err.println("Warm-up PNG encode failed: " + e.getMessage());
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - frameStarted);
+            if (i == 0) {
+                coldFrameMillis = elapsed;
+            }
+            warmFrameMillis = elapsed;
+        }
+    }
+
+    private void probeFfmpeg(long timeoutSeconds) {
+        String version = FFmpegProbe.version(properties.getVideo(), timeoutSeconds);
+        if (version == null) {
+            System.err.println("FFmpeg probe failed or timed out after " + timeoutSeconds +
+                " seconds, video encoding will be unavailable.");
+            return;
+        }
+        ffmpegVersion = version;
+        System.out.println("FFmpeg available: " + version);
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public String getFfmpegVersion() {
+        return ffmpegVersion;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warm ? Health.up() : Health.outOfService();
+        builder.withDetail("coldFrameMillis", coldFrameMillis)
+            .withDetail("warmFrameMillis", warmFrameMillis);
+        if (ffmpegVersion != null) {
+            builder.withDetail("ffmpeg", ffmpegVersion);
+        }
+        return builder.build();
+    }
+}
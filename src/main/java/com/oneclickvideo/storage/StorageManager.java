@@ -0,0 +1,316 @@
+package com.oneclickvideo.storage;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.service.VideoEncodedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage Manager for One Click Video Generator
+ *
+ * Keeps the output directory bounded. Frame directories are removed once their
+ * video has been encoded, and a periodic sweep evicts finished videos that are
+ * older than the age limit or, least recently used first, that push the
+ * directory over its quota. Frame directories left by failed jobs are swept as
+ * soon as no job can still be writing them; kept frames (with
+ * {@code delete-frames-after-encode: false}) go before any video when over quota.
+ * All file system work runs on a single background thread, never on a request thread.
+ */
+@Component
+public class StorageManager {
+
+    static final String FRAMES_SUFFIX = "_frames";
+
+    private final OneClickVideoProperties properties;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong videoCount = new AtomicLong();
+    private final AtomicLong frameDirCount = new AtomicLong();
+    private final AtomicLong freeBytes = new AtomicLong();
+    private final Counter evictedVideos;
+    private final Counter deletedFrameDirs;
+
+    public StorageManager(OneClickVideoProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-manager");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        Gauge.builder("video.storage.used", usedBytes, AtomicLong::get).baseUnit("bytes")
+            .description("Bytes used by videos and frame directories in the output directory").register(registry);
+        Gauge.builder("video.storage.free", freeBytes, AtomicLong::get).baseUnit("bytes")
+            .description("Usable space left on the output directory's file store").register(registry);
+        Gauge.builder("video.storage.videos", videoCount, AtomicLong::get)
+            .description("Finished videos in the output directory").register(registry);
+        Gauge.builder("video.storage.frame.dirs", frameDirCount, AtomicLong::get)
+            .description("Frame directories awaiting cleanup").register(registry);
+        this.evictedVideos = Counter.builder("video.storage.evicted").register(registry);
+        this.deletedFrameDirs = Counter.builder("video.storage.frame.dirs.deleted").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = Math.max(1, properties.getStorage().getCleanupIntervalSeconds());
+        executor.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onVideoEncoded(VideoEncodedEvent event) {
+        if (properties.getStorage().isDeleteFramesAfterEncode() && event.framesDir() != null) {
+            executor.execute(() -> {
+                try {
+                    deleteTree(event.framesDir());
+                    deletedFrameDirs.increment();
+                } catch (IOException e) {
+                    System.err.println("Could not delete frames " + event.framesDir() + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Storage sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Walks the output directory, refreshes the disk-usage gauges and applies the
+     * age and quota limits. Files younger than the FFmpeg timeout are never touched,
+     * since they may belong to a job that is still running.
+     */
+    void sweep() throws IOException {
+        OneClickVideoProperties.Storage storageProps = properties.getStorage();
+        Path outputDir = Path.of(properties.getVideo().getOutputDir()).normalize();
+        if (!Files.isDirectory(outputDir)) {
+            return;
+        }
+
+        Inventory inventory = new Inventory(outputDir);
+        Files.walkFileTree(outputDir, inventory);
+        freeBytes.set(Files.getFileStore(outputDir).getUsableSpace());
+
+        Instant now = Instant.now();
+        Instant inFlightCutoff = now.minusSeconds(properties.getVideo().getFfmpegTimeoutSeconds());
+        Instant ageCutoff = storageProps.getMaxAgeHours() > 0
+            ? now.minus(Duration.ofHours(storageProps.getMaxAgeHours()))
+            : Instant.MIN;
+        long quota = storageProps.getMaxTotalMegabytes() * 1024 * 1024;
+
+        Set<Path> doomed = new LinkedHashSet<>();
+        long used = inventory.totalBytes;
+
+        // Frames are only meant to outlive their job when the operator keeps them;
+        // otherwise a settled frame directory belongs to a job that failed.
+        boolean framesKept = !storageProps.isDeleteFramesAfterEncode();
+        List<StoredItem> frameDirs = new ArrayList<>(inventory.frameDirs);
+        frameDirs.sort(Comparator.comparing(StoredItem::lastUsed));
+        for (StoredItem frames : frameDirs) {
+            if (!frames.lastUsed.isBefore(inFlightCutoff)) {
+                break;
+            }
+            boolean garbage = !framesKept || frames.lastUsed.isBefore(ageCutoff);
+            boolean overQuota = quota > 0 && used > quota;
+            if (garbage || overQuota) {
+                doomed.addAll(frames.paths);
+                used -= frames.bytes;
+            }
+        }
+
+        List<StoredItem> videos = new ArrayList<>(inventory.videos.values());
+        videos.sort(Comparator.comparing(StoredItem::lastUsed));
+        for (StoredItem video : videos) {
+            if (!video.lastUsed.isBefore(inFlightCutoff)) {
+                break;
+            }
+            boolean expired = video.lastUsed.isBefore(ageCutoff);
+            boolean overQuota = quota > 0 && used > quota;
+            if (expired || overQuota) {
+                doomed.addAll(video.paths);
+                used -= video.bytes;
+                evictedVideos.increment();
+            }
+        }
+
+        deleteInBatches(new ArrayList<>(doomed), Math.max(1, storageProps.getBatchSize()));
+
+        usedBytes.set(used);
+        videoCount.set(videos.stream().filter(video -> !doomed.contains(video.paths.get(0))).count());
+        frameDirCount.set(inventory.frameDirs.stream().filter(frames -> !doomed.contains(frames.paths.get(0))).count());
+    }
+
+    private void deleteInBatches(List<Path> paths, int batchSize) {
+        for (int start = 0; start < paths.size(); start += batchSize) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            for (Path path : paths.subList(start, Math.min(paths.size(), start + batchSize))) {
+                try {
+                    deleteTree(path);
+                } catch (IOException e) {
+                    System.err.println("Could not delete " + path + ": " + e.getMessage());
+                }
+            }
+            Thread.yield();
+        }
+        if (!paths.isEmpty()) {
+            System.out.println("Storage cleanup removed " + paths.size() + " entries");
+        }
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.deleteIfExists(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (exc instanceof NoSuchFileException) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exc;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null && !(exc instanceof NoSuchFileException)) {
+                    throw exc;
+                }
+                Files.deleteIfExists(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Waits for queued cleanup work to finish.
+     */
+    void awaitIdle() throws InterruptedException, ExecutionException {
+        executor.submit(() -> { }).get();
+    }
+
+    /**
+     * A frame directory, or a finished video together with its renditions, poster and
+     * preview. Derived outputs share the main video's name up to the first dot, so a
+     * job is always evicted as a whole.
+     */
+    private record StoredItem(List<Path> paths, long bytes, Instant lastUsed) {
+
+        private StoredItem merge(StoredItem other) {
+            List<Path> merged = new ArrayList<>(paths);
+            merged.addAll(other.paths);
+            return new StoredItem(merged, bytes + other.bytes,
+                lastUsed.isAfter(other.lastUsed) ? lastUsed : other.lastUsed);
+        }
+    }
+
+    private static final class Inventory extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+        private final Map<String, StoredItem> videos = new HashMap<>();
+        private final List<StoredItem> frameDirs = new ArrayList<>();
+        private long totalBytes;
+        private Path currentFrameDir;
+        private long currentFrameBytes;
+        private Instant currentFrameLastUsed;
+
+        private Inventory(Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (dir.equals(root)) {
+                return FileVisitResult.CONTINUE;
+            }
+            if (dir.getParent().equals(root) && dir.getFileName().toString().endsWith(FRAMES_SUFFIX)) {
+                currentFrameDir = dir;
+                currentFrameBytes = 0;
+                currentFrameLastUsed = lastUsed(attrs);
+                return FileVisitResult.CONTINUE;
+            }
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            totalBytes += attrs.size();
+            if (currentFrameDir != null && file.startsWith(currentFrameDir)) {
+                currentFrameBytes += attrs.size();
+                Instant fileLastUsed = lastUsed(attrs);
+                if (fileLastUsed.isAfter(currentFrameLastUsed)) {
+                    currentFrameLastUsed = fileLastUsed;
+                }
+            } else if (attrs.isRegularFile()) {
+                String name = file.getFileName().toString();
+                int dot = name.indexOf('.');
+                String job = dot > 0 ? name.substring(0, dot) : name;
+                videos.merge(job, new StoredItem(List.of(file), attrs.size(), lastUsed(attrs)), StoredItem::merge);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            if (dir.equals(currentFrameDir)) {
+                frameDirs.add(new StoredItem(List.of(dir), currentFrameBytes, currentFrameLastUsed));
+                currentFrameDir = null;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        private static Instant lastUsed(BasicFileAttributes attrs) {
+            Instant accessed = attrs.lastAccessTime().toInstant();
+            Instant modified = attrs.lastModifiedTime().toInstant();
+            return accessed.isAfter(modified) ? accessed : modified;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.oneclickvideo.tracing;
+
+import com.oneclickvideo.encoding.ProcessUsage;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accounting for one generation job: a root span with a child span per stage,
+ * plus the CPU, allocation, disk and encoder-process figures that end up in its
+ * {@link ResourceUsage}. Stages and thread meters may be used from any thread.
+ */
+public final class JobTrace implements AutoCloseable {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Tracer tracer;
+    private final Span root;
+    private final Context context;
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private final LongAdder renderCpuNanos = new LongAdder();
+    private final LongAdder encodeCpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private volatile long diskBytesWritten;
+    private volatile ProcessUsage encoderProcess = ProcessUsage.NONE;
+    private ResourceUsage usage;
+
+    JobTrace(Tracer tracer, String name) {
+        this.tracer = tracer;
+        this.root = tracer.spanBuilder(name).setNoParent().startSpan();
+        this.context = Context.root().with(root);
+    }
+
+    /**
+     * The job's root span, for attributes that describe the whole job.
+     */
+    public Span span() {
+        return root;
+    }
+
+    public String traceId() {
+        return root.getSpanContext().getTraceId();
+    }
+
+    /**
+     * Starts a stage; its wall time is recorded when the returned handle closes.
+     */
+    public Stage stage(String name) {
+        synchronized (stageNanos) {
+            stageNanos.putIfAbsent(name, 0L);
+        }
+        return new Stage(name, tracer.spanBuilder(name).setParent(context).startSpan());
+    }
+
+    /**
+     * Meters the calling thread as a frame renderer until the meter is closed.
+     */
+    public ThreadMeter meterRenderThread() {
+        return new ThreadMeter(renderCpuNanos);
+    }
+
+    /**
+     * Meters the calling thread as the one feeding the encoder until the meter is closed.
+     */
+    public ThreadMeter meterEncodeThread() {
+        return new ThreadMeter(encodeCpuNanos);
+    }
+
+    public void recordDiskBytesWritten(long bytes) {
+        diskBytesWritten += bytes;
+    }
+
+    public void recordEncoderProcess(ProcessUsage usage) {
+        encoderProcess = usage;
+    }
+
+    public void fail(Throwable error) {
+        root.recordException(error);
+        root.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+    }
+
+    /**
+     * Ends the root span and returns the job's totals.
+     */
+    public synchronized ResourceUsage finish() {
+        if (usage != null) {
+            return usage;
+        }
+        Map<String, Long> stageMillis = new LinkedHashMap<>();
+        synchronized (stageNanos) {
+            stageNanos.forEach((stage, nanos) -> stageMillis.put(stage, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+        usage = new ResourceUsage(
+            traceId(),
+            stageMillis,
+            TimeUnit.NANOSECONDS.toMillis(renderCpuNanos.sum()),
+            TimeUnit.NANOSECONDS.toMillis(encodeCpuNanos.sum()),
+            allocatedBytes.sum(),
+            diskBytesWritten,
+            encoderProcess.cpu().toMillis(),
+            encoderProcess.peakRssBytes()
+        );
+        root.setAttribute(AttributeKey.longKey("job.render.cpu_ms"), usage.renderCpuMillis());
+        root.setAttribute(AttributeKey.longKey("job.encode.cpu_ms"), usage.encodeCpuMillis());
+        root.setAttribute(AttributeKey.longKey("job.allocated_bytes"), usage.allocatedBytes());
+        root.setAttribute(AttributeKey.longKey("job.disk.bytes_written"), usage.diskBytesWritten());
+        root.setAttribute(AttributeKey.longKey("job.encoder_process.cpu_ms"), usage.encoderProcessCpuMillis());
+        root.setAttribute(AttributeKey.longKey("job.encoder_process.peak_rss_bytes"),
+            usage.encoderProcessPeakRssBytes());
+        root.end();
+        return usage;
+    }
+
+    /**
+     * Ends the root span if {@link #finish()} was not reached.
+     */
+    @Override
+    public void close() {
+        finish();
+    }
+
+    public final class Stage implements AutoCloseable {
+
+        private final String name;
+        private final Span span;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private Stage(String name, Span span) {
+            this.name = name;
+            this.span = span;
+        }
+
+        /**
+         * Ends the stage; later calls are ignored, so it may be closed from a
+         * completion callback as well as a finally block.
+         */
+        @Override
+        public void close() {
+            if (ended.compareAndSet(false, true)) {
+                long elapsed = System.nanoTime() - started;
+                synchronized (stageNanos) {
+                    stageNanos.merge(name, elapsed, Long::sum);
+                }
+                span.end();
+            }
+        }
+    }
+
+    public final class ThreadMeter implements AutoCloseable {
+
+        private final LongAdder cpuNanos;
+        private final long startCpu = threadCpuNanos();
+        private final long startAllocated = threadAllocatedBytes();
+
+        private ThreadMeter(LongAdder cpuNanos) {
+            this.cpuNanos = cpuNanos;
+        }
+
+        @Override
+        public void close() {
+            cpuNanos.add(threadCpuNanos() - startCpu);
+            allocatedBytes.add(threadAllocatedBytes() - startAllocated);
+        }
+    }
+
+    private static long threadCpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.oneclickvideo.tracing;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Job Tracer for One Click Video Generator
+ *
+ * Starts a {@link JobTrace} per generation job. Spans go through the
+ * OpenTelemetry SDK to an in-memory exporter (and stdout when
+ * {@code tracing.log-spans} is set), so a slow job can be taken apart locally
+ * without a collector.
+ */
+@Component
+public class JobTracer {
+
+    private final RecentSpanExporter exporter;
+    private final SdkTracerProvider provider;
+    private final Tracer tracer;
+
+    @Autowired
+    public JobTracer(OneClickVideoProperties properties) {
+        this(properties.getTracing());
+    }
+
+    public JobTracer(OneClickVideoProperties.Tracing config) {
+        this.exporter = new RecentSpanExporter(config.getRetainedSpans(), config.isLogSpans());
+        this.provider = SdkTracerProvider.builder()
+            .setResource(Resource.getDefault().merge(Resource.create(
+                Attributes.of(AttributeKey.stringKey("service.name"), "one-click-video-generator"))))
+            .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+            .build();
+        this.tracer = provider.get("com.oneclickvideo");
+    }
+
+    public JobTrace start(String name) {
+        return new JobTrace(tracer, name);
+    }
+
+    /**
+     * Recently finished spans, oldest first; all of them when {@code traceId} is {@code null}.
+     */
+    public List<SpanRecord> spans(String traceId) {
+        return exporter.spans(traceId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        provider.shutdown();
+    }
+}
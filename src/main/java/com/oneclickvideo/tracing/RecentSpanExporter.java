@@ -0,0 +1,93 @@
+package com.oneclickvideo.tracing;
+
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Span exporter for local use: keeps the most recent spans in memory for
+ * {@code GET /traces} and optionally prints each one as it finishes. Nothing is
+ * sent off the host.
+ */
+final class RecentSpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final boolean log;
+    private final Deque<SpanRecord> spans = new ArrayDeque<>();
+
+    RecentSpanExporter(int capacity, boolean log) {
+        this.capacity = Math.max(0, capacity);
+        this.log = log;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData data : batch) {
+            SpanRecord span = toRecord(data);
+            if (log) {
+                System.out.printf(Locale.ROOT, "Span %s %.1f ms [trace %s] %s%n", span.name(),
+                    span.durationMillis(), span.traceId(), span.attributes());
+            }
+            synchronized (spans) {
+                spans.addLast(span);
+                while (spans.size() > capacity) {
+                    spans.removeFirst();
+                }
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Retained spans, oldest first, optionally only those of one trace.
+     */
+    List<SpanRecord> spans(String traceId) {
+        synchronized (spans) {
+            List<SpanRecord> matching = new ArrayList<>();
+            for (SpanRecord span : spans) {
+                if (traceId == null || traceId.equals(span.traceId())) {
+                    matching.add(span);
+                }
+            }
+            return matching;
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static SpanRecord toRecord(SpanData data) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        data.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        String parent = SpanId.isValid(data.getParentSpanId()) ? data.getParentSpanId() : null;
+        return new SpanRecord(
+            data.getTraceId(),
+            data.getSpanId(),
+            parent,
+            data.getName(),
+            Instant.EPOCH.plusNanos(data.getStartEpochNanos()),
+            (data.getEndEpochNanos() - data.getStartEpochNanos()) / (double) TimeUnit.MILLISECONDS.toNanos(1),
+            data.getStatus().getStatusCode().name(),
+            attributes
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.oneclickvideo.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resources one generation job used, as returned with its result.
+ * {@code stageMillis} holds the wall time of each stage in the order they
+ * started; render and encode overlap, so stages do not add up to the total.
+ * CPU figures cover this JVM's render threads and the job thread feeding the
+ * encoder; {@code allocatedBytes} is heap allocated by both. The encoder process
+ * figures are zero for in-process backends.
+ */
+public record ResourceUsage(String traceId, Map<String, Long> stageMillis, long renderCpuMillis,
+                            long encodeCpuMillis, long allocatedBytes, long diskBytesWritten,
+                            long encoderProcessCpuMillis, long encoderProcessPeakRssBytes) {
+
+    public ResourceUsage {
+        stageMillis = Collections.unmodifiableMap(new LinkedHashMap<>(stageMillis));
+    }
+
+    /**
+     * Adds a stage that ran before this job started, such as its time in the
+     * scheduler queue.
+     */
+    public ResourceUsage withEarlierStage(String stage, long millis) {
+        Map<String, Long> stages = new LinkedHashMap<>();
+        stages.put(stage, millis);
+        stageMillis.forEach(stages::putIfAbsent);
+        return new ResourceUsage(traceId, stages, renderCpuMillis, encodeCpuMillis, allocatedBytes,
+            diskBytesWritten, encoderProcessCpuMillis, encoderProcessPeakRssBytes);
+    }
+}
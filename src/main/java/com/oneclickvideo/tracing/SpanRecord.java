@@ -0,0 +1,12 @@
+package com.oneclickvideo.tracing;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A finished span as kept by the in-memory exporter; {@code parentSpanId} is
+ * {@code null} for a job's root span.
+ */
+public record SpanRecord(String traceId, String spanId, String parentSpanId, String name, Instant start,
+                         double durationMillis, String status, Map<String, String> attributes) {
+}
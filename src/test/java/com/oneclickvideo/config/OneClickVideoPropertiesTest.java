@@ -7,6 +7,7 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Configuration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class OneClickVideoPropertiesTest {
 
@@ -26,7 +27,9 @@ class OneClickVideoPropertiesTest {
                 "one-click-video.video.output-dir=build/out",
                 "one-click-video.video.ffmpeg-command=custom-ffmpeg",
                 "one-click-video.video.ffmpeg-timeout-seconds=9",
-                "one-click-video.content.channel-name=Test Channel"
+                "one-click-video.content.channel-name=Test Channel",
+                "one-click-video.warmup.enabled=false",
+                "one-click-video.warmup.frames=5"
             )
             .run(context -> {
                 OneClickVideoProperties properties = context.getBean(OneClickVideoProperties.class);
@@ -37,6 +40,8 @@ class OneClickVideoPropertiesTest {
                 assertEquals("custom-ffmpeg", properties.getVideo().getFfmpegCommand());
                 assertEquals(9, properties.getVideo().getFfmpegTimeoutSeconds());
                 assertEquals("Test Channel", properties.getContent().getChannelName());
+                assertFalse(properties.getWarmup().isEnabled());
+                assertEquals(5, properties.getWarmup().getFrames());
             });
     }
 
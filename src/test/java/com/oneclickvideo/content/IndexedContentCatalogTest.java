@@ -0,0 +1,140 @@
+package com.oneclickvideo.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedContentCatalogTest {
+
+    private static final String[] THEMES = {"mountain", "bmx", "forest", "urban", "coastal"};
+
+    @Test
+    void loadsBundledCatalog() throws IOException {
+        IndexedContentCatalog catalog = ContentCatalogLoader.loadDefault();
+
+        assertEquals(10, catalog.size());
+        CatalogEntry entry = catalog.findById("pump-track").orElseThrow();
+        assertEquals("Pump Track Mastery - Kids Bike Skills", entry.title());
+        assertNull(entry.channelName());
+        assertTrue(catalog.findById("missing").isEmpty());
+    }
+
+    @Test
+    void streamsJsonArrayWithChannelsAndWeights() throws IOException {
+        String json = "[{\"id\":\"a\",\"title\":\"A\",\"story\":\"Story A\",\"channel\":\"Other\",\"weight\":3,\"extra\":{\"x\":1}},"
+            + "{\"id\":\"b\",\"title\":\"B\",\"story\":\"Story B\"}]";
+        IndexedContentCatalog catalog = ContentCatalogLoader.load(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, catalog.size());
+        assertEquals("Other", catalog.findById("a").orElseThrow().channelName());
+        assertEquals(3.0, catalog.findById("a").orElseThrow().weight());
+        assertEquals("Riding Roney", catalog.findById("b").orElseThrow().channelNameOr("Riding Roney"));
+    }
+
+    @Test
+    void rejectsDuplicateIds() {
+        IndexedContentCatalog.Builder builder = IndexedContentCatalog.builder()
+            .add("same", null, "A", "Story", null, 1)
+            .add("same", null, "B", "Story", null, 1);
+
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    void weightedSelectionFollowsWeights() {
+        IndexedContentCatalog catalog = IndexedContentCatalog.builder()
+            .add("rare", null, "Rare", "Story", null, 1)
+            .add("common", null, "Common", "Story", null, 9)
+            .build();
+
+        SplittableRandom random = new SplittableRandom(42);
+        int common = 0;
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) {
+            if (catalog.weighted(random).id().equals("common")) {
+                common++;
+            }
+        }
+
+        assertEquals(0.9, common / (double) draws, 0.01);
+    }
+
+    @Test
+    void retainsLessHeapPerEntryThanStringLists() {
+        int size = 200_000;
+
+        long before = settledHeapUsed();
+        List<String> naive = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String theme = theme(i);
+            naive.add("entry-" + i);
+            naive.add(theme);
+            naive.add(title(i));
+            naive.add(story(i));
+            naive.add("Riding Roney");
+        }
+        long naiveBytes = settledHeapUsed() - before;
+        Reference.reachabilityFence(naive);
+        naive = null;
+
+        before = settledHeapUsed();
+        IndexedContentCatalog.Builder builder = IndexedContentCatalog.builder();
+        for (int i = 0; i < size; i++) {
+            builder.add("entry-" + i, theme(i), title(i), story(i), "Riding Roney", 1);
+        }
+        IndexedContentCatalog catalog = builder.build();
+        builder = null;
+        long compactBytes = settledHeapUsed() - before;
+
+        System.out.println("Retained heap for " + size + " entries: string lists " + naiveBytes / size +
+            " B/entry, indexed catalog " + compactBytes / size + " B/entry (estimated " +
+            catalog.footprintBytes() / size + " B/entry)");
+        assertTrue(compactBytes < naiveBytes, "catalog " + compactBytes + " B, lists " + naiveBytes + " B");
+        assertEquals("entry-123456", catalog.findById("entry-123456").orElseThrow().id());
+        Reference.reachabilityFence(catalog);
+    }
+
+    private static String theme(int i) {
+        return THEMES[i % THEMES.length];
+    }
+
+    private static String title(int i) {
+        return "Epic " + theme(i) + " Adventure #" + i + " - Kids Bike Safety";
+    }
+
+    private static String story(int i) {
+        return "Helmet on, knee pads secure. Ride the " + theme(i) + " trail safely! Part " + (i % 50);
+    }
+
+    /**
+     * Used heap once collections stop freeing anything, so that the difference
+     * between two readings is what the code in between left reachable.
+     */
+    private static long settledHeapUsed() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long previous = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long used = memory.getHeapMemoryUsage().getUsed();
+            if (Math.abs(previous - used) < 256 * 1024) {
+                return used;
+            }
+            previous = used;
+        }
+        return previous;
+    }
+}
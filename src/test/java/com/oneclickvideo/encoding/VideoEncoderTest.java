@@ -0,0 +1,260 @@
+package com.oneclickvideo.encoding;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.frames.DeltaFrameReader;
+import com.oneclickvideo.frames.DeltaFrameWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VideoEncoderTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mjpegWritesPlayableAviWithIndex() throws Exception {
+        Path avi = tempDir.resolve("clip.avi");
+        EncodeJob job = new EncodeJob(tempDir, WIDTH, HEIGHT, 3, 1, avi, List.of(avi), List.of());
+        List<Integer> progress = new ArrayList<>();
+
+        try (VideoEncoder.Session session = new MjpegAviEncoder(0.9f).open(job, (done, total) -> progress.add(done))) {
+            for (int i = 0; i < 3; i++) {
+                session.writeFrame(frame(new Color(40 * i, 100, 200)));
+            }
+            session.finish();
+        }
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(avi)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("RIFF", fourcc(file, 0));
+        assertEquals(file.capacity() - 8, file.getInt(4));
+        assertEquals("AVI ", fourcc(file, 8));
+        assertEquals(3, file.getInt(48), "avih total frames");
+        assertEquals("movi", fourcc(file, 220));
+
+        int moviEnd = 220 + file.getInt(216);
+        assertEquals("idx1", fourcc(file, moviEnd));
+        assertEquals(3 * 16, file.getInt(moviEnd + 4));
+        for (int i = 0; i < 3; i++) {
+            int entry = moviEnd + 8 + i * 16;
+            int chunk = 220 + file.getInt(entry + 8);
+            int size = file.getInt(entry + 12);
+            assertEquals("00dc", fourcc(file, chunk));
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(file.array(), chunk + 8, size));
+            assertEquals(WIDTH, decoded.getWidth());
+            assertEquals(40 * i, new Color(decoded.getRGB(WIDTH / 2, HEIGHT / 2)).getRed(), 6);
+        }
+        assertEquals(List.of(1, 2, 3), progress);
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void rawPipeStreamsBgr0FramesToFfmpegStdin() throws Exception {
+        Path captured = tempDir.resolve("stdin.raw");
+        Path stub = tempDir.resolve("stub-ffmpeg.sh");
+        Files.writeString(stub, "#!/bin/sh\ncat > \"" + captured + "\"\n" +
+            "for a in \"$@\"; do case \"$a\" in *.mp4) printf x > \"$a\";; esac; done\n");
+        assertTrue(stub.toFile().setExecutable(true));
+
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setFfmpegCommand(stub.toString());
+        Path main = tempDir.resolve("out.mp4");
+        EncodeJob job = new EncodeJob(tempDir, WIDTH, HEIGHT, 2, 1, main, List.of(main), List.of(main.toString()));
+
+        try (VideoEncoder.Session session = new RawPipeFFmpegEncoder(properties.getVideo())
+            .open(job, VideoEncoder.ProgressListener.NONE)) {
+            session.writeFrame(frame(new Color(0x11, 0x22, 0x33)));
+            session.writeFrame(frame(Color.WHITE));
+            session.finish();
+        }
+
+        byte[] raw = Files.readAllBytes(captured);
+        assertEquals(2 * WIDTH * HEIGHT * 4, raw.length);
+        assertEquals(0x33, raw[0] & 0xFF);
+        assertEquals(0x22, raw[1] & 0xFF);
+        assertEquals(0x11, raw[2] & 0xFF);
+        assertTrue(Files.size(main) > 0);
+    }
+
+    @Test
+    void deltaFrameRecordingReplaysIntoAnotherBackend() throws Exception {
+        Path recording = tempDir.resolve("clip.ocvf");
+        EncodeJob job = new EncodeJob(tempDir, WIDTH, HEIGHT, 3, 2, recording, List.of(recording), List.of());
+        try (VideoEncoder.Session session = new DeltaFrameEncoder().open(job, VideoEncoder.ProgressListener.NONE)) {
+            session.writeFrame(frame(Color.RED));
+            session.repeatFrame(frame(Color.RED));
+            session.writeFrame(frame(Color.BLUE));
+            session.finish();
+        }
+
+        List<String> calls = new ArrayList<>();
+        try (DeltaFrameReader reader = DeltaFrameReader.open(recording)) {
+            assertEquals(2, reader.frameRate());
+            int frames = FrameReplay.replay(reader, new VideoEncoder.Session() {
+                @Override
+                public void writeFrame(BufferedImage frame) {
+                    calls.add("write " + Integer.toHexString(frame.getRGB(0, 0) & 0xFFFFFF));
+                }
+
+                @Override
+                public void repeatFrame(BufferedImage frame) {
+                    calls.add("repeat");
+                }
+
+                @Override
+                public void finish() {
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            assertEquals(3, frames);
+        }
+        assertEquals(List.of("write ff0000", "repeat", "write ff"), calls);
+
+        Path pngDir = tempDir.resolve("png");
+        try (DeltaFrameReader reader = DeltaFrameReader.open(recording)) {
+            assertEquals(3, FrameReplay.toPng(reader, pngDir));
+        }
+        assertEquals(Color.BLUE.getRGB(), ImageIO.read(pngDir.resolve("frame_002.png").toFile()).getRGB(1, 1));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void replayEncodesUnclosedRecordingWithJobOutputArgs() throws Exception {
+        Path recording = tempDir.resolve("crashed.ocvf");
+        DeltaFrameWriter writer = DeltaFrameWriter.create(recording, WIDTH, HEIGHT, 2);
+        writer.write(frame(Color.RED));
+        writer.write(frame(Color.BLUE));
+        writer.repeat();
+        // Never closed: the header still says 0 frames.
+        assertEquals(3, DeltaFrameReader.countFrames(recording));
+
+        Path args = tempDir.resolve("args.txt");
+        Path captured = tempDir.resolve("stdin.raw");
+        Path stub = tempDir.resolve("stub-ffmpeg.sh");
+        Files.writeString(stub, "#!/bin/sh\necho \"$*\" > \"" + args + "\"\ncat > \"" + captured + "\"\n" +
+            "for last; do :; done\nprintf x > \"$last\"\n");
+        assertTrue(stub.toFile().setExecutable(true));
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setFfmpegCommand(stub.toString());
+        properties.getVideo().setPreset("slow");
+
+        Path mp4 = tempDir.resolve("replayed.mp4");
+        FrameReplay.encode(recording, "raw-ffmpeg", mp4, properties);
+        assertTrue(Files.readString(args).strip()
+            .endsWith("-c:v libx264 -pix_fmt yuv420p -crf 23 -preset slow " + mp4));
+        assertEquals(3L * WIDTH * HEIGHT * 4, Files.size(captured));
+
+        Path avi = tempDir.resolve("replayed.avi");
+        FrameReplay.encode(recording, "mjpeg", avi, properties);
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(avi)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(3, header.getInt(48));
+        writer.close();
+    }
+
+    @Test
+    void autoKeepsPngBackendUntilBenchmarkRanksAnotherFaster() throws Exception {
+        OneClickVideoProperties.Encoding config = new OneClickVideoProperties.Encoding();
+        config.setBenchmarkWidth(32);
+        config.setBenchmarkHeight(18);
+        config.setBenchmarkFrames(3);
+        FakeEncoder fast = new FakeEncoder("raw-ffmpeg", true, true, 1);
+        FakeEncoder slow = new FakeEncoder(PngSequenceFFmpegEncoder.NAME, true, true, 20);
+        FakeEncoder missing = new FakeEncoder("broken", true, false, 0);
+        NullEncoder sink = new NullEncoder();
+        EncoderRegistry registry = new EncoderRegistry(config, List.of(fast, slow, missing, sink));
+
+        try {
+            assertSame(slow, registry.resolve(null), "unprobed registry falls back to the PNG backend");
+
+            registry.probe();
+            assertSame(slow, registry.resolve("auto"), "probing alone does not displace the PNG backend");
+
+            List<EncoderRegistry.Status> ranked = registry.benchmarkInBackground().get(30, TimeUnit.SECONDS);
+            assertEquals(PngSequenceFFmpegEncoder.NAME, ranked.get(2).name(), "slowest working backend ranks last");
+            assertEquals("broken", ranked.get(3).name());
+            assertNotNull(registry.status().get(0).framesPerSecond());
+            assertSame(fast, registry.resolve(null), "benchmark promotes the faster backend");
+            assertSame(sink, registry.resolve("NULL"));
+            assertThrows(IllegalArgumentException.class, () -> registry.resolve("broken"));
+            assertThrows(IllegalArgumentException.class, () -> registry.resolve("quicktime"));
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    private static BufferedImage frame(Color color) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.dispose();
+        return image;
+    }
+
+    private static String fourcc(ByteBuffer buffer, int offset) {
+        return new String(buffer.array(), offset, 4, StandardCharsets.US_ASCII);
+    }
+
+    private record FakeEncoder(String name, boolean derivedOutputs, boolean works, long millisPerFrame)
+        implements VideoEncoder {
+
+        @Override
+        public String extension() {
+            return null;
+        }
+
+        @Override
+        public boolean probe() {
+            return works;
+        }
+
+        @Override
+        public Session open(EncodeJob job, ProgressListener progress) {
+            return new Session() {
+                @Override
+                public void writeFrame(BufferedImage frame) {
+                    try {
+                        Thread.sleep(millisPerFrame);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void finish() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.oneclickvideo.frames;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaFrameFileTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 36;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keyframeDeltasAndRepeatsReadBackExactly() throws Exception {
+        List<BufferedImage> frames = List.of(story(WIDTH, HEIGHT, 0), story(WIDTH, HEIGHT, 1), noise(7),
+            story(WIDTH, HEIGHT, 2));
+        Path file = tempDir.resolve("clip.ocvf");
+        try (DeltaFrameWriter writer = DeltaFrameWriter.create(file, WIDTH, HEIGHT, 30)) {
+            writer.write(frames.get(0));
+            writer.write(frames.get(1));
+            writer.repeat();
+            writer.write(frames.get(2));
+            writer.write(frames.get(3));
+            assertEquals(5, writer.frames());
+        }
+
+        List<BufferedImage> expected = List.of(frames.get(0), frames.get(1), frames.get(1), frames.get(2),
+            frames.get(3));
+        try (DeltaFrameReader reader = DeltaFrameReader.open(file)) {
+            assertEquals(WIDTH, reader.width());
+            assertEquals(30, reader.frameRate());
+            assertEquals(5, reader.frameCount());
+            for (int i = 0; i < expected.size(); i++) {
+                BufferedImage frame = reader.next();
+                assertArrayEquals(pixels(expected.get(i)), pixels(frame), "frame " + i);
+                assertEquals(i == 2, reader.repeated());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void fileCutShortReadsUpToItsLastCompleteRecord() throws Exception {
+        Path file = tempDir.resolve("crashed.ocvf");
+        DeltaFrameWriter writer = DeltaFrameWriter.create(file, WIDTH, HEIGHT, 1);
+        writer.write(story(WIDTH, HEIGHT, 0));
+        writer.write(story(WIDTH, HEIGHT, 1));
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (DeltaFrameReader reader = DeltaFrameReader.open(file)) {
+            assertEquals(0, reader.frameCount(), "the writer never closed");
+            assertArrayEquals(pixels(story(WIDTH, HEIGHT, 0)), pixels(reader.next()));
+            assertFalse(reader.readInto(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB)));
+        }
+        assertEquals(1, DeltaFrameReader.countFrames(file));
+        Files.writeString(file, "not frames at all, just some text");
+        assertThrows(IOException.class, () -> DeltaFrameReader.open(file));
+    }
+
+    /**
+     * Size and write speed against a PNG per frame, for a 30 fps 720p story clip.
+     * Only the size is asserted; the timings are printed for comparison.
+     */
+    @Test
+    void recordsStoryFramesFarSmallerThanPng() throws Exception {
+        int width = 1280;
+        int height = 720;
+        int frameCount = 60;
+        List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < frameCount; i++) {
+            frames.add(story(width, height, i / 15));
+        }
+
+        Path file = tempDir.resolve("story.ocvf");
+        long started = System.nanoTime();
+        try (DeltaFrameWriter writer = DeltaFrameWriter.create(file, width, height, 30)) {
+            for (int i = 0; i < frameCount; i++) {
+                writer.write(frames.get(i));
+            }
+        }
+        long deltaNanos = System.nanoTime() - started;
+        long deltaBytes = Files.size(file);
+
+        Path pngDir = Files.createDirectory(tempDir.resolve("png"));
+        started = System.nanoTime();
+        for (int i = 0; i < frameCount; i++) {
+            ImageIO.write(frames.get(i), "PNG", pngDir.resolve("frame_" + i + ".png").toFile());
+        }
+        long pngNanos = System.nanoTime() - started;
+        long pngBytes = 0;
+        for (int i = 0; i < frameCount; i++) {
+            pngBytes += Files.size(pngDir.resolve("frame_" + i + ".png"));
+        }
+
+        System.out.printf(Locale.ROOT, "Frame storage, %d frames %dx%d: delta %.0f fps, %d KiB; PNG %.0f fps, %d KiB%n",
+            frameCount, width, height, frameCount / (deltaNanos / 1e9), deltaBytes / 1024,
+            frameCount / (pngNanos / 1e9), pngBytes / 1024);
+        assertTrue(deltaBytes * 4 < pngBytes, "delta " + deltaBytes + " B vs PNG " + pngBytes + " B");
+
+        try (DeltaFrameReader reader = DeltaFrameReader.open(file)) {
+            BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            for (int i = 0; i < frameCount; i++) {
+                assertTrue(reader.readInto(frame));
+                assertArrayEquals(pixels(frames.get(i)), pixels(frame), "frame " + i);
+            }
+        }
+    }
+
+    /**
+     * A gradient with a channel name and a few lines of story, scrolled by {@code step} lines.
+     */
+    private static BufferedImage story(int width, int height, int step) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, new Color(135, 206, 235), width, height, new Color(70, 130, 180)));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(8, height / 18)));
+        g.drawString("Riding Channel", width / 25, height / 7);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(8, height / 22)));
+        for (int line = 0; line < 6; line++) {
+            g.drawString("Story line " + (line + step), width / 12, height / 3 + line * height / 18);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage noise(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = pixels(image);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt(4) == 0 ? pixels[Math.max(0, i - 1)] : random.nextInt() & 0xFFFFFF;
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,131 @@
+package com.oneclickvideo.frames;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameSpoolTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 36;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelOutOfOrderWritesAreReadBackInOrder() throws Exception {
+        int frames = 200;
+        Path file = tempDir.resolve("frames.spool");
+        ExecutorService renderers = Executors.newFixedThreadPool(4);
+        try (FrameSpool spool = FrameSpool.create(file, WIDTH, HEIGHT, 8)) {
+            // Frames are submitted in reversed groups of four, smaller than the spool,
+            // so writes arrive out of order but can always make progress.
+            List<CompletableFuture<Void>> writers = new ArrayList<>();
+            for (int start = 0; start < frames; start += 4) {
+                List<Integer> batch = new ArrayList<>();
+                for (int i = start; i < Math.min(frames, start + 4); i++) {
+                    batch.add(i);
+                }
+                Collections.reverse(batch);
+                for (int frame : batch) {
+                    writers.add(CompletableFuture.runAsync(() -> write(spool, frame), renderers));
+                }
+            }
+
+            BufferedImage target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            for (int i = 0; i < frames; i++) {
+                assertEquals(i, spool.readInto(target));
+                assertArrayEquals(pixels(i), target.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+            }
+            CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            assertEquals(8 * spool.frameBytes(), Files.size(file));
+        } finally {
+            renderers.shutdownNow();
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void writerWaitsForItsSlotToBeReleased() throws Exception {
+        try (FrameSpool spool = FrameSpool.create(tempDir.resolve("frames.spool"), WIDTH, HEIGHT, 2)) {
+            spool.write(0, opaque(pixels(0)));
+            spool.write(1, opaque(pixels(1)));
+            CompletableFuture<Void> third = CompletableFuture.runAsync(() -> write(spool, 2));
+
+            assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+            spool.next();
+            assertEquals(0, spool.release());
+            third.get(5, TimeUnit.SECONDS);
+
+            BufferedImage target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            assertEquals(1, spool.readInto(target));
+            assertEquals(2, spool.readInto(target));
+            assertArrayEquals(pixels(2), target.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+        }
+    }
+
+    @Test
+    void failureWakesBlockedReader() throws Exception {
+        try (FrameSpool spool = FrameSpool.create(tempDir.resolve("frames.spool"), WIDTH, HEIGHT, 2)) {
+            CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+                try {
+                    spool.next();
+                } catch (IOException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            spool.fail(new IllegalStateException("renderer crashed"));
+
+            Exception failure = assertThrows(Exception.class, () -> reader.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause().getCause() instanceof IOException);
+            IOException aborted = assertThrows(IOException.class, () -> spool.write(0, opaque(pixels(0))));
+            assertEquals("Frame spool aborted", aborted.getMessage());
+        }
+    }
+
+    private static void write(FrameSpool spool, int frame) {
+        try {
+            spool.write(frame, opaque(pixels(frame)));
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Distinct, frame-specific content with the alpha byte set, as {@code getRGB} reports it.
+     */
+    private static int[] pixels(int frame) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | ((frame * 7919 + i * 13) & 0xFFFFFF);
+        }
+        return pixels;
+    }
+
+    private static int[] opaque(int[] argb) {
+        int[] rgb = Arrays.copyOf(argb, argb.length);
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] &= 0xFFFFFF;
+        }
+        return rgb;
+    }
+}
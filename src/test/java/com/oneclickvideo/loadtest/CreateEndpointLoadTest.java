@@ -0,0 +1,98 @@
+package com.oneclickvideo.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ramps concurrent {@code POST /create} traffic against the app on a random port,
+ * with FFmpeg replaced by a shell stub so the run measures the service itself.
+ * Writes {@code target/load-test/report.json} and {@code report.html} and fails on
+ * SLO violations or on regressions against {@code loadtest/baseline.json}.
+ *
+ * Excluded from the default build; run with {@code mvn -Ploadtest test}. Tune with
+ * {@code -Dloadtest.levels=1,2,4,8}, {@code -Dloadtest.stageSeconds},
+ * {@code -Dloadtest.tolerance}, {@code -Dloadtest.sloP95Millis} and
+ * {@code -Dloadtest.sloErrorRate}.
+ */
+@Tag("load")
+@DisabledOnOs(OS.WINDOWS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "one-click-video.video.width=640",
+    "one-click-video.video.height=360",
+    "one-click-video.video.duration=5",
+    "one-click-video.outputs.preview=false",
+    "one-click-video.adaptive.enabled=false",
+    "logging.level.com.oneclickvideo=INFO"
+})
+class CreateEndpointLoadTest {
+
+    private static final Path WORK_DIR = Path.of("target", "load-test");
+
+    @LocalServerPort
+    int port;
+
+    @DynamicPropertySource
+    static void stubFfmpeg(DynamicPropertyRegistry registry) throws IOException {
+        Files.createDirectories(WORK_DIR);
+        Path stub = WORK_DIR.resolve("stub-ffmpeg.sh");
+        try (InputStream in = CreateEndpointLoadTest.class.getResourceAsStream("/loadtest/stub-ffmpeg.sh")) {
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                .replace("@encode.seconds@", System.getProperty("loadtest.encodeSeconds", "0.2"));
+            Files.writeString(stub, script);
+        }
+        if (!stub.toFile().setExecutable(true)) {
+            throw new IOException("Could not make " + stub + " executable");
+        }
+        registry.add("one-click-video.video.ffmpeg-command", () -> stub.toAbsolutePath().toString());
+        registry.add("one-click-video.video.output-dir", () -> WORK_DIR.resolve("videos").toAbsolutePath().toString());
+    }
+
+    @Test
+    void createEndpointMeetsSloAndBaseline() throws Exception {
+        int[] levels = LoadTestDriver.parseLevels(System.getProperty("loadtest.levels", "1,2,4,8"));
+        Duration stage = Duration.ofSeconds(Long.getLong("loadtest.stageSeconds", 15));
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.5"));
+        LoadReport.Slo slo = new LoadReport.Slo(
+            Double.parseDouble(System.getProperty("loadtest.sloP95Millis", "5000")),
+            Double.parseDouble(System.getProperty("loadtest.sloErrorRate", "0.01")));
+
+        String environment = System.getProperty("os.name") + ", Java " + System.getProperty("java.version") + ", "
+            + Runtime.getRuntime().availableProcessors() + " cores, stub encode "
+            + System.getProperty("loadtest.encodeSeconds", "0.2") + " s";
+        LoadTestDriver driver = new LoadTestDriver(URI.create("http://localhost:" + port), Duration.ofSeconds(60));
+        LoadReport report = driver.run(levels, stage, slo, environment);
+
+        List<String> findings = new ArrayList<>(report.sloViolations());
+        try (InputStream in = getClass().getResourceAsStream("/loadtest/baseline.json")) {
+            if (in != null) {
+                findings.addAll(report.regressionsAgainst(LoadReport.read(in), tolerance));
+            } else {
+                report.writeJson(WORK_DIR.resolve("baseline-candidate.json"));
+                System.out.println("No baseline recorded; copy target/load-test/baseline-candidate.json to "
+                    + "src/test/resources/loadtest/baseline.json");
+            }
+        }
+
+        report.writeJson(WORK_DIR.resolve("report.json"));
+        report.writeHtml(WORK_DIR.resolve("report.html"), findings);
+        assertTrue(findings.isEmpty(), "Load test failed:\n" + String.join("\n", findings));
+    }
+}
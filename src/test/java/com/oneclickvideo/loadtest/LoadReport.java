@@ -0,0 +1,157 @@
+package com.oneclickvideo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of one load-test run: one row per concurrency stage, plus the SLO the run
+ * was held to. Serializes to JSON (also the baseline format) and to a standalone
+ * HTML page.
+ */
+record LoadReport(String environment, Slo slo, List<Stage> stages) {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Service-level objective applied to every stage.
+     */
+    record Slo(double p95Millis, double maxErrorRate) {
+    }
+
+    /**
+     * Latencies are in milliseconds and cover successful requests only. Heap and GC
+     * figures come from the application's actuator metrics and are {@code -1} when
+     * the target does not expose them.
+     */
+    record Stage(int concurrency, double seconds, int requests, int succeeded, int errors, int timeouts,
+                 double throughput, double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+                 long heapPeakBytes, long heapMaxBytes, long gcCount, double gcPauseMillis) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : errors / (double) requests;
+        }
+
+        double timeoutRate() {
+            return requests == 0 ? 0 : timeouts / (double) requests;
+        }
+    }
+
+    static LoadReport read(InputStream in) throws IOException {
+        return JSON.readValue(in, LoadReport.class);
+    }
+
+    void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        JSON.writeValue(file.toFile(), this);
+    }
+
+    /**
+     * Stages that miss the SLO. Error rate counts timeouts as errors.
+     */
+    List<String> sloViolations() {
+        List<String> violations = new ArrayList<>();
+        for (Stage stage : stages) {
+            if (stage.p95Millis() > slo.p95Millis()) {
+                violations.add(String.format(Locale.ROOT, "c=%d: p95 %.0f ms exceeds SLO %.0f ms",
+                    stage.concurrency(), stage.p95Millis(), slo.p95Millis()));
+            }
+            if (stage.errorRate() > slo.maxErrorRate()) {
+                violations.add(String.format(Locale.ROOT, "c=%d: error rate %.2f%% exceeds SLO %.2f%%",
+                    stage.concurrency(), stage.errorRate() * 100, slo.maxErrorRate() * 100));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Stages that got worse than the same concurrency level in {@code baseline} by
+     * more than {@code tolerance} (0.5 = 50%): lower throughput, higher p95, or
+     * an error rate more than one point above the baseline's.
+     */
+    List<String> regressionsAgainst(LoadReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Stage stage : stages) {
+            Stage before = baseline.stage(stage.concurrency());
+            if (before == null) {
+                continue;
+            }
+            if (stage.throughput() < before.throughput() * (1 - tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "c=%d: throughput %.2f/s vs baseline %.2f/s",
+                    stage.concurrency(), stage.throughput(), before.throughput()));
+            }
+            if (stage.p95Millis() > before.p95Millis() * (1 + tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "c=%d: p95 %.0f ms vs baseline %.0f ms",
+                    stage.concurrency(), stage.p95Millis(), before.p95Millis()));
+            }
+            if (stage.errorRate() > before.errorRate() + 0.01) {
+                regressions.add(String.format(Locale.ROOT, "c=%d: error rate %.2f%% vs baseline %.2f%%",
+                    stage.concurrency(), stage.errorRate() * 100, before.errorRate() * 100));
+            }
+        }
+        return regressions;
+    }
+
+    Stage stage(int concurrency) {
+        for (Stage stage : stages) {
+            if (stage.concurrency() == concurrency) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    void writeHtml(Path file, List<String> findings) throws IOException {
+        StringBuilder html = new StringBuilder()
+            .append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>/create load test</title>\n")
+            .append("<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse}")
+            .append("td,th{border:1px solid #ccc;padding:4px 10px;text-align:right}")
+            .append(".bad{color:#b00020}.ok{color:#1b5e20}</style></head><body>\n")
+            .append("<h1>/create load test</h1>\n<p>").append(escape(environment)).append("</p>\n")
+            .append(String.format(Locale.ROOT, "<p>SLO: p95 &le; %.0f ms, error rate &le; %.2f%%</p>%n",
+                slo.p95Millis(), slo.maxErrorRate() * 100))
+            .append("<table><tr><th>Concurrency</th><th>Requests</th><th>Throughput/s</th><th>p50 ms</th>")
+            .append("<th>p95 ms</th><th>p99 ms</th><th>Max ms</th><th>Errors</th><th>Timeouts</th>")
+            .append("<th>Heap peak MB</th><th>GCs</th><th>GC pause ms</th></tr>\n");
+        for (Stage stage : stages) {
+            boolean ok = stage.p95Millis() <= slo.p95Millis() && stage.errorRate() <= slo.maxErrorRate();
+            html.append(String.format(Locale.ROOT,
+                "<tr class=\"%s\"><td>%d</td><td>%d</td><td>%.2f</td><td>%.0f</td><td>%.0f</td><td>%.0f</td>"
+                    + "<td>%.0f</td><td>%.2f%%</td><td>%.2f%%</td><td>%s</td><td>%s</td><td>%s</td></tr>%n",
+                ok ? "ok" : "bad", stage.concurrency(), stage.requests(), stage.throughput(), stage.p50Millis(),
+                stage.p95Millis(), stage.p99Millis(), stage.maxMillis(), stage.errorRate() * 100,
+                stage.timeoutRate() * 100, megabytes(stage.heapPeakBytes()),
+                stage.gcCount() < 0 ? "n/a" : Long.toString(stage.gcCount()),
+                stage.gcPauseMillis() < 0 ? "n/a" : String.format(Locale.ROOT, "%.0f", stage.gcPauseMillis())));
+        }
+        html.append("</table>\n");
+        if (findings.isEmpty()) {
+            html.append("<p class=\"ok\">No SLO violations or regressions.</p>\n");
+        } else {
+            html.append("<ul class=\"bad\">\n");
+            for (String finding : findings) {
+                html.append("<li>").append(escape(finding)).append("</li>\n");
+            }
+            html.append("</ul>\n");
+        }
+        html.append("</body></html>\n");
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, html);
+    }
+
+    private static String megabytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
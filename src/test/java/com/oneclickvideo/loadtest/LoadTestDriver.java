@@ -0,0 +1,207 @@
+package com.oneclickvideo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load driver for {@code POST /create}. Each stage runs a fixed number
+ * of virtual users that send requests back to back for the stage duration;
+ * stages ramp through the configured concurrency levels. Heap and GC activity
+ * are read from the target's {@code /actuator/metrics}.
+ *
+ * Runs against an already started app with
+ * {@code java ... LoadTestDriver http://localhost:8080 1,2,4,8 30}; the
+ * {@code loadtest} Maven profile starts a local app instead (see
+ * {@link CreateEndpointLoadTest}).
+ */
+class LoadTestDriver {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+
+    LoadTestDriver(URI baseUri, Duration requestTimeout) {
+        this.baseUri = baseUri;
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int[] levels = parseLevels(args.length > 1 ? args[1] : "1,2,4,8");
+        Duration stage = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        LoadTestDriver driver = new LoadTestDriver(baseUri, Duration.ofSeconds(120));
+        LoadReport report = driver.run(levels, stage, new LoadReport.Slo(30_000, 0.01), baseUri.toString());
+        report.writeJson(Path.of("target", "load-test", "report.json"));
+        report.writeHtml(Path.of("target", "load-test", "report.html"), report.sloViolations());
+        System.out.println("Report written to target/load-test/");
+    }
+
+    static int[] parseLevels(String levels) {
+        return Arrays.stream(levels.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    LoadReport run(int[] levels, Duration stageDuration, LoadReport.Slo slo, String environment) throws Exception {
+        // One untimed request so the first stage does not pay for lazy initialization.
+        send();
+
+        List<LoadReport.Stage> stages = new ArrayList<>();
+        for (int concurrency : levels) {
+            LoadReport.Stage stage = runStage(concurrency, stageDuration);
+            System.out.printf(Locale.ROOT, "c=%d: %d requests, %.2f/s, p50 %.0f ms, p95 %.0f ms, p99 %.0f ms, "
+                    + "errors %d, timeouts %d%n", stage.concurrency(), stage.requests(), stage.throughput(),
+                stage.p50Millis(), stage.p95Millis(), stage.p99Millis(), stage.errors(), stage.timeouts());
+            stages.add(stage);
+        }
+        return new LoadReport(environment, slo, List.copyOf(stages));
+    }
+
+    private LoadReport.Stage runStage(int concurrency, Duration duration) throws Exception {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        AtomicLong heapPeak = new AtomicLong(-1);
+        double gcCountBefore = metric("jvm.gc.pause", "COUNT", null);
+        double gcPauseBefore = metric("jvm.gc.pause", "TOTAL_TIME", null);
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            double heap = metric("jvm.memory.used", "VALUE", "area:heap");
+            if (heap >= 0) {
+                heapPeak.accumulateAndGet((long) heap, Math::max);
+            }
+        }, 0, 250, TimeUnit.MILLISECONDS);
+
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int user = 0; user < concurrency; user++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        Outcome outcome = send();
+                        requests.incrementAndGet();
+                        switch (outcome) {
+                            case OK -> latencies.add(System.nanoTime() - sent);
+                            case TIMEOUT -> {
+                                timeouts.incrementAndGet();
+                                errors.incrementAndGet();
+                            }
+                            case ERROR -> errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-user-" + user);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampler.shutdownNow();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        double gcCountAfter = metric("jvm.gc.pause", "COUNT", null);
+        double gcPauseAfter = metric("jvm.gc.pause", "TOTAL_TIME", null);
+        boolean gcKnown = gcCountBefore >= 0 && gcCountAfter >= 0;
+
+        return new LoadReport.Stage(concurrency, seconds, requests.get(), sorted.length, errors.get(),
+            timeouts.get(), sorted.length / seconds,
+            percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95), percentileMillis(sorted, 0.99),
+            percentileMillis(sorted, 1.0), heapPeak.get(), (long) metric("jvm.memory.max", "VALUE", "area:heap"),
+            gcKnown ? (long) (gcCountAfter - gcCountBefore) : -1,
+            gcKnown ? (gcPauseAfter - gcPauseBefore) * 1000 : -1);
+    }
+
+    private Outcome send() {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/create"))
+            .timeout(requestTimeout)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2 ? Outcome.OK : Outcome.ERROR;
+        } catch (HttpTimeoutException e) {
+            return Outcome.TIMEOUT;
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.ERROR;
+        }
+    }
+
+    /**
+     * Reads one statistic of an actuator metric, or returns {@code -1} if the metric
+     * is not available. {@code jvm.gc.pause} only appears after the first collection,
+     * so a missing pause metric counts as zero once heap metrics are present.
+     */
+    private double metric(String name, String statistic, String tag) {
+        String query = tag == null ? "" : "?tag=" + tag;
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/actuator/metrics/" + name + query))
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 404 && name.equals("jvm.gc.pause")) {
+                return metric("jvm.memory.used", "VALUE", "area:heap") >= 0 ? 0 : -1;
+            }
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            for (JsonNode measurement : JSON.readTree(response.body()).path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedNanos.length);
+        return sortedNanos[Math.max(0, Math.min(sortedNanos.length, rank) - 1)] / 1e6;
+    }
+
+    private enum Outcome {
+        OK, ERROR, TIMEOUT
+    }
+}
@@ -0,0 +1,128 @@
+package com.oneclickvideo.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the app on the reactive stack with an FFmpeg stub that copies the raw
+ * frames it is piped into the main output, so the streamed body is exactly the
+ * frames the job rendered.
+ */
+@DisabledOnOs(OS.WINDOWS)
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "one-click-video.video.width=64",
+    "one-click-video.video.height=48",
+    "one-click-video.video.duration=3",
+    "one-click-video.video.frame-rate=2",
+    "one-click-video.outputs.preview=false",
+    "one-click-video.outputs.poster=false",
+    "one-click-video.adaptive.enabled=false",
+    "one-click-video.encoding.backend=raw-ffmpeg",
+    "one-click-video.warmup.enabled=false"
+})
+class ReactiveGenerationTest {
+
+    private static final Path WORK_DIR = Path.of("target", "reactive-test");
+    private static final int STREAM_BYTES = 6 * 64 * 48 * 4;
+
+    @Autowired
+    WebTestClient client;
+
+    @DynamicPropertySource
+    static void stubFfmpeg(DynamicPropertyRegistry registry) throws IOException {
+        Files.createDirectories(WORK_DIR);
+        Path stub = WORK_DIR.resolve("stub-ffmpeg.sh");
+        Files.writeString(stub, "#!/bin/sh\n" +
+            "case \"$*\" in\n" +
+            "  *-demuxers*) echo ' D  rawvideo  raw video'; exit 0 ;;\n" +
+            "  *-encoders*) echo ' V....D libx264  libx264 H.264'; exit 0 ;;\n" +
+            "  *-version*) echo 'ffmpeg version reactive-test-stub'; exit 0 ;;\n" +
+            "esac\n" +
+            "echo \"$*\" > \"" + WORK_DIR.resolve("args.txt").toAbsolutePath() + "\"\n" +
+            "for last; do :; done\n" +
+            "cat > \"$last\"\n");
+        if (!stub.toFile().setExecutable(true)) {
+            throw new IOException("Could not make " + stub + " executable");
+        }
+        registry.add("one-click-video.video.ffmpeg-command", () -> stub.toAbsolutePath().toString());
+        registry.add("one-click-video.video.output-dir", () -> WORK_DIR.resolve("videos").toAbsolutePath().toString());
+    }
+
+    @Test
+    void createStreamsTheOutputAsFragmentedMp4() throws IOException {
+        byte[] body = client.post().uri("/reactive/create")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("video/mp4")
+            .expectHeader().exists("X-Job-Id")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+
+        assertNotNull(body);
+        assertEquals(STREAM_BYTES, body.length);
+        assertTrue(Files.readString(WORK_DIR.resolve("args.txt")).contains("+frag_keyframe+empty_moov"));
+    }
+
+    @Test
+    void jobReportsProgressOverServerSentEventsAndKeepsItsOutput() {
+        Map<String, String> links = client.post().uri("/reactive/jobs?seed=7")
+            .exchange()
+            .expectStatus().isAccepted()
+            .expectBody(new ParameterizedTypeReference<Map<String, String>>() { })
+            .returnResult()
+            .getResponseBody();
+        assertNotNull(links);
+
+        List<ServerSentEvent<JobProgress>> events = client.get().uri(links.get("progress"))
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<JobProgress>>() { })
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertNotNull(events);
+        ServerSentEvent<JobProgress> last = events.get(events.size() - 1);
+        assertEquals(StreamingJob.DONE, last.event());
+        assertEquals(6, last.data().framesEncoded());
+
+        byte[] output = client.get().uri(links.get("output"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+        assertNotNull(output);
+        assertEquals(STREAM_BYTES, output.length);
+    }
+
+    @Test
+    void unknownJobsAndEncodersAreRejected() {
+        client.get().uri("/reactive/jobs/missing/progress").exchange().expectStatus().isNotFound();
+        client.post().uri("/reactive/create?encoder=quicktime").exchange().expectStatus().isBadRequest();
+    }
+}
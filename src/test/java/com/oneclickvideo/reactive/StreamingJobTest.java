@@ -0,0 +1,212 @@
+package com.oneclickvideo.reactive;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.service.GenerationResult;
+import com.oneclickvideo.service.RenderSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingJobTest {
+
+    private static final int FRAMES = 10;
+    private static final int FRAME_BYTES = 512;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void slowReaderHoldsBackTheEncoderUntilItAsksForMore() throws Exception {
+        OneClickVideoProperties.Reactive config = config(1024, 30);
+        StreamingJob job = new StreamingJob("job-1", "mp4", config, Schedulers.boundedElastic());
+        Path output = tempDir.resolve("out.mp4");
+        Files.createFile(output);
+        job.onOutput(output, true);
+
+        Reader reader = new Reader();
+        job.output().subscribe(reader);
+        AtomicInteger framesEncoded = new AtomicInteger();
+        Thread encoder = encode(job, output, framesEncoded);
+
+        // Nothing has been requested: the encoder runs until it is a window ahead.
+        waitUntil(() -> encoder.getState() == Thread.State.TIMED_WAITING);
+        Thread.sleep(200);
+        assertEquals(3, framesEncoded.get(), "encoder stops once the reader is more than 1 KiB behind");
+
+        reader.request(Long.MAX_VALUE);
+        encoder.join(10_000);
+        assertEquals(FRAMES, framesEncoded.get());
+        job.complete(result(output));
+
+        assertTrue(reader.completed.await(10, TimeUnit.SECONDS));
+        assertEquals((long) FRAMES * FRAME_BYTES, reader.bytes.get());
+
+        List<JobProgress> events = job.progress().collectList().block(Duration.ofSeconds(5));
+        assertEquals(StreamingJob.DONE, events.get(events.size() - 1).state());
+        assertEquals("out.mp4", events.get(events.size() - 1).file());
+    }
+
+    @Test
+    void stalledReaderIsLeftBehindAndReadsTheFileLater() throws Exception {
+        StreamingJob job = new StreamingJob("job-2", "mp4", config(1024, 1), Schedulers.boundedElastic());
+        Path output = tempDir.resolve("stalled.mp4");
+        Files.createFile(output);
+        job.onOutput(output, true);
+
+        Reader reader = new Reader();
+        job.output().subscribe(reader);
+        AtomicInteger framesEncoded = new AtomicInteger();
+        long started = System.nanoTime();
+        Thread encoder = encode(job, output, framesEncoded);
+        encoder.join(10_000);
+        assertEquals(FRAMES, framesEncoded.get());
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(waitedMillis >= 900 && waitedMillis < 5_000, "waited once for the stall timeout: " + waitedMillis);
+
+        job.complete(result(output));
+        reader.request(Long.MAX_VALUE);
+        assertTrue(reader.completed.await(10, TimeUnit.SECONDS));
+        assertEquals((long) FRAMES * FRAME_BYTES, reader.bytes.get());
+    }
+
+    @Test
+    void onlyTheStalledReaderIsLeftBehind() throws Exception {
+        StreamingJob job = new StreamingJob("job-3", "mp4", config(1024, 1), Schedulers.boundedElastic());
+        Path output = tempDir.resolve("mixed.mp4");
+        Files.createFile(output);
+        job.onOutput(output, true);
+
+        Reader stalled = new Reader();
+        Reader steady = new Reader();
+        job.output().subscribe(stalled);
+        job.output().subscribe(steady);
+        Thread pacer = new Thread(() -> {
+            while (steady.completed.getCount() > 0) {
+                steady.request(1);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "test-pacer");
+        pacer.start();
+
+        AtomicLong maxLead = new AtomicLong();
+        Thread encoder = new Thread(() -> {
+            try {
+                for (int i = 0; i < FRAMES; i++) {
+                    Files.write(output, new byte[FRAME_BYTES], StandardOpenOption.APPEND);
+                    job.onProgress(i + 1, FRAMES);
+                    maxLead.accumulateAndGet((long) (i + 1) * FRAME_BYTES - steady.bytes.get(), Math::max);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, "test-encoder");
+        encoder.start();
+        encoder.join(15_000);
+        job.complete(result(output));
+
+        assertTrue(maxLead.get() <= 1024 + 256, "the steady reader kept pacing the job: " + maxLead.get());
+        assertTrue(steady.completed.await(10, TimeUnit.SECONDS));
+        pacer.interrupt();
+        stalled.request(Long.MAX_VALUE);
+        assertTrue(stalled.completed.await(10, TimeUnit.SECONDS));
+        assertEquals((long) FRAMES * FRAME_BYTES, stalled.bytes.get());
+    }
+
+    @Test
+    void throttlingIsCappedPerJob() throws Exception {
+        OneClickVideoProperties.Reactive config = config(1024, 30);
+        config.setMaxThrottleSeconds(1);
+        StreamingJob job = new StreamingJob("job-4", "mp4", config, Schedulers.boundedElastic());
+        Path output = tempDir.resolve("capped.mp4");
+        Files.createFile(output);
+        job.onOutput(output, true);
+
+        job.output().subscribe(new Reader());
+        AtomicInteger framesEncoded = new AtomicInteger();
+        long started = System.nanoTime();
+        Thread encoder = encode(job, output, framesEncoded);
+        encoder.join(10_000);
+        assertEquals(FRAMES, framesEncoded.get());
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(waitedMillis >= 900 && waitedMillis < 5_000, "held back for the throttle limit: " + waitedMillis);
+    }
+
+    private static Thread encode(StreamingJob job, Path output, AtomicInteger framesEncoded) {
+        Thread encoder = new Thread(() -> {
+            try {
+                for (int i = 0; i < FRAMES; i++) {
+                    Files.write(output, new byte[FRAME_BYTES], StandardOpenOption.APPEND);
+                    framesEncoded.incrementAndGet();
+                    job.onProgress(i + 1, FRAMES);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, "test-encoder");
+        encoder.start();
+        return encoder;
+    }
+
+    private static OneClickVideoProperties.Reactive config(long windowBytes, long stallSeconds) {
+        OneClickVideoProperties.Reactive config = new OneClickVideoProperties.Reactive();
+        config.setStreamWindowBytes(windowBytes);
+        config.setChunkBytes(256);
+        config.setStallSeconds(stallSeconds);
+        return config;
+    }
+
+    private static GenerationResult result(Path output) {
+        return new GenerationResult(output.toFile(), "content", 1L, new RenderSettings(64, 48, 10, 1, "veryfast"),
+            List.of(), Map.of("main", output.toFile()), null);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class Reader extends BaseSubscriber<DataBuffer> {
+
+        final AtomicLong bytes = new AtomicLong();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // request nothing until the test says so
+        }
+
+        @Override
+        protected void hookOnNext(DataBuffer buffer) {
+            bytes.addAndGet(buffer.readableByteCount());
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed.countDown();
+        }
+    }
+}
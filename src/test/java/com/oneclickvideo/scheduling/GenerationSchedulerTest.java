@@ -0,0 +1,302 @@
+package com.oneclickvideo.scheduling;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.service.AdaptiveLoadPolicy;
+import com.oneclickvideo.service.GenerationRequest;
+import com.oneclickvideo.service.GenerationResult;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+    private static final long AGING = TimeUnit.SECONDS.toNanos(120);
+    private static final long SLACK = TimeUnit.SECONDS.toNanos(30);
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, Long> durations = new ConcurrentHashMap<>();
+
+    @Test
+    void interactiveJobsRunBeforeBatchUntilBatchAges() {
+        FairShareQueue<String> queue = new FairShareQueue<>(tenant -> 1.0, tenant -> 10, AGING, SLACK);
+        queue.add("batch", new JobSpec("a", JobPriority.BATCH, null, 1), 0);
+        queue.add("interactive", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 10);
+        assertEquals("interactive", queue.poll(20, NOW).payload);
+
+        queue.add("late-interactive", new JobSpec("b", JobPriority.INTERACTIVE, null, 1), AGING - 1);
+        assertEquals("batch", queue.poll(AGING, NOW).payload);
+        assertEquals("late-interactive", queue.poll(AGING, NOW).payload);
+    }
+
+    @Test
+    void cheapJobOvertakesQueuedExpensiveRenders() {
+        FairShareQueue<String> queue = new FairShareQueue<>(tenant -> 1.0, tenant -> 10, AGING, SLACK);
+        queue.add("4k-1", new JobSpec("bulk", JobPriority.INTERACTIVE, null, 250), 0);
+        queue.add("4k-2", new JobSpec("bulk", JobPriority.INTERACTIVE, null, 250), 0);
+        queue.add("short", new JobSpec("small", JobPriority.INTERACTIVE, null, 2), 0);
+
+        assertEquals("short", queue.poll(0, NOW).payload);
+        assertEquals("4k-1", queue.poll(0, NOW).payload);
+        assertEquals("4k-2", queue.poll(0, NOW).payload);
+    }
+
+    @Test
+    void tenantsShareByWeight() {
+        FairShareQueue<String> queue = new FairShareQueue<>(
+            tenant -> tenant.equals("heavy") ? 3.0 : 1.0, tenant -> 10, AGING, SLACK);
+        for (int i = 0; i < 40; i++) {
+            queue.add("heavy", new JobSpec("heavy", JobPriority.INTERACTIVE, null, 1), 0);
+            queue.add("light", new JobSpec("light", JobPriority.INTERACTIVE, null, 1), 0);
+        }
+
+        int heavy = 0;
+        for (int i = 0; i < 40; i++) {
+            FairShareQueue.Entry<String> next = queue.poll(0, NOW);
+            queue.complete(next.spec.tenant());
+            if (next.payload.equals("heavy")) {
+                heavy++;
+            }
+        }
+        assertEquals(30, heavy, 1);
+    }
+
+    @Test
+    void urgentDeadlinesRunEarliestFirst() {
+        FairShareQueue<String> queue = new FairShareQueue<>(tenant -> 1.0, tenant -> 10, AGING, SLACK);
+        queue.add("fair", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.add("later", new JobSpec("b", JobPriority.INTERACTIVE, NOW.plusSeconds(20), 50), 0);
+        queue.add("sooner", new JobSpec("c", JobPriority.INTERACTIVE, NOW.plusSeconds(10), 50), 0);
+        queue.add("relaxed", new JobSpec("d", JobPriority.INTERACTIVE, NOW.plusSeconds(600), 50), 0);
+
+        assertEquals("sooner", queue.poll(0, NOW).payload);
+        assertEquals("later", queue.poll(0, NOW).payload);
+        assertEquals("fair", queue.poll(0, NOW).payload);
+        assertEquals("relaxed", queue.poll(0, NOW).payload);
+    }
+
+    @Test
+    void skipsTenantsAtTheirConcurrencyCap() {
+        FairShareQueue<String> queue = new FairShareQueue<>(tenant -> 1.0, tenant -> 1, AGING, SLACK);
+        queue.add("a1", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.add("a2", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 0);
+
+        assertEquals("a1", queue.poll(0, NOW).payload);
+        assertNull(queue.poll(0, NOW));
+        queue.complete("a");
+        assertEquals("a2", queue.poll(0, NOW).payload);
+    }
+
+    @Test
+    void forgetsTenantsWithNothingQueuedOrRunning() {
+        FairShareQueue<String> queue = new FairShareQueue<>(tenant -> 1.0, tenant -> 10, AGING, SLACK);
+        queue.add("a1", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.add("a2", new JobSpec("a", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.add("b1", new JobSpec("b", JobPriority.INTERACTIVE, null, 1), 0);
+        assertEquals(2, queue.tenants());
+
+        queue.complete(queue.poll(0, NOW).spec.tenant());
+        queue.complete(queue.poll(0, NOW).spec.tenant());
+        assertEquals(1, queue.tenants());
+
+        FairShareQueue.Entry<String> last = queue.poll(0, NOW);
+        assertEquals(1, queue.tenants());
+        queue.complete(last.spec.tenant());
+        assertEquals(0, queue.tenants());
+
+        queue.add("c1", new JobSpec("c", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.add("d1", new JobSpec("d", JobPriority.INTERACTIVE, null, 1), 0);
+        queue.poll(0, NOW);
+        queue.drain();
+        assertEquals(1, queue.tenants());
+    }
+
+    @Test
+    void mixedLoadSimulation() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getScheduler().setWorkers(4);
+        properties.getScheduler().setTenantConcurrency(3);
+
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> peak = new ConcurrentHashMap<>();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GenerationScheduler scheduler = new GenerationScheduler(properties, (request, spec) -> {
+            String tenant = spec.tenant();
+            int now = running.computeIfAbsent(tenant, key -> new AtomicInteger()).incrementAndGet();
+            peak.computeIfAbsent(tenant, key -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(durations.get(request.seed()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.get(tenant).decrementAndGet();
+            }
+            return new GenerationResult(null, tenant, request.seed(), null, List.of(), Map.of(), null);
+        }, new AdaptiveLoadPolicy(properties), Clock.systemUTC(), registry);
+
+        try {
+            // A bulk tenant floods the queue with long batch renders, then another
+            // tenant keeps submitting short interactive jobs.
+            List<CompletableFuture<GenerationResult>> batch = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                batch.add(scheduler.submit(job(40), new JobSpec("bulk", JobPriority.BATCH, null, 40)));
+            }
+            List<CompletableFuture<GenerationResult>> interactive = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                interactive.add(scheduler.submit(job(5),
+                    new JobSpec("viewer", JobPriority.INTERACTIVE, null, 5)));
+                Thread.sleep(5);
+            }
+
+            CompletableFuture.allOf(interactive.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            long batchDoneWhenInteractiveFinished = batch.stream().filter(CompletableFuture::isDone).count();
+            CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            Timer interactiveLatency = scheduler.queueLatency(JobPriority.INTERACTIVE);
+            Timer batchLatency = scheduler.queueLatency(JobPriority.BATCH);
+
+            assertEquals(20, interactiveLatency.count());
+            assertEquals(40, batchLatency.count());
+            assertTrue(interactiveLatency.mean(TimeUnit.MILLISECONDS) < batchLatency.mean(TimeUnit.MILLISECONDS));
+            assertTrue(batchDoneWhenInteractiveFinished < batch.size(),
+                "Interactive jobs should not wait for the batch backlog to drain");
+            assertTrue(peak.get("bulk").get() <= 3, "Tenant cap exceeded: " + peak.get("bulk"));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void differentlySizedJobsShareWorkByCost() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getScheduler().setWorkers(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        GenerationScheduler scheduler = new GenerationScheduler(properties, (request, spec) -> {
+            release.join();
+            order.add(spec.tenant());
+            return new GenerationResult(null, spec.tenant(), request.seed(), null, List.of(), Map.of(), null);
+        }, new AdaptiveLoadPolicy(properties), Clock.systemUTC(), new SimpleMeterRegistry());
+
+        try {
+            // One channel queues long 1080p renders, another eight times as many
+            // short clips of an eighth of the cost each: both ask for the same work.
+            List<CompletableFuture<GenerationResult>> jobs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                jobs.add(scheduler.submit(job(0), new JobSpec("long", JobPriority.INTERACTIVE, null, 40)));
+            }
+            for (int i = 0; i < 40; i++) {
+                jobs.add(scheduler.submit(job(0), new JobSpec("short", JobPriority.INTERACTIVE, null, 5)));
+            }
+            release.complete(null);
+            CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            int lastShort = order.lastIndexOf("short");
+            long longBeforeLastShort = order.subList(0, lastShort).stream().filter("long"::equals).count();
+            // Equal work means five long renders for the forty short clips; counting
+            // jobs instead would alternate and run all ten long renders first.
+            assertTrue(longBeforeLastShort >= 4 && longBeforeLastShort <= 6,
+                "long renders before the last short clip: " + longBeforeLastShort + " in " + order);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullAndPropagatesFailures() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getScheduler().setWorkers(1);
+        properties.getScheduler().setQueueCapacity(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+
+        GenerationScheduler scheduler = new GenerationScheduler(properties, (request, spec) -> {
+            release.join();
+            throw new IllegalArgumentException("Unknown content id: " + request.contentId());
+        }, new AdaptiveLoadPolicy(properties), Clock.systemUTC(), new SimpleMeterRegistry());
+
+        try {
+            CompletableFuture<GenerationResult> first = scheduler.submit(job(0),
+                new JobSpec("x", JobPriority.INTERACTIVE, null, 1));
+            while (scheduler.running("x") == 0) {
+                Thread.sleep(1);
+            }
+            scheduler.submit(job(0), new JobSpec("x", JobPriority.INTERACTIVE, null, 1));
+            assertThrows(RejectedExecutionException.class,
+                () -> scheduler.submit(job(0), new JobSpec("x", JobPriority.INTERACTIVE, null, 1)));
+
+            release.complete(null);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueStepsDownNewJobs() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getScheduler().setWorkers(1);
+        properties.getScheduler().setQueueCapacity(4);
+        properties.getAdaptive().setMaxConcurrentJobs(2);
+        AdaptiveLoadPolicy loadPolicy = new AdaptiveLoadPolicy(properties);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+
+        GenerationScheduler scheduler = new GenerationScheduler(properties, (request, spec) -> {
+            release.join();
+            return new GenerationResult(null, spec.tenant(), request.seed(), null, List.of(), Map.of(), null);
+        }, loadPolicy, Clock.systemUTC(), new SimpleMeterRegistry());
+
+        try {
+            try (AdaptiveLoadPolicy.Ticket idle = loadPolicy.admit()) {
+                assertTrue(idle.decision().applied().isEmpty());
+            }
+
+            scheduler.submit(job(0), new JobSpec("x", JobPriority.INTERACTIVE, null, 1));
+            while (scheduler.running("x") == 0) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 4; i++) {
+                scheduler.submit(job(0), new JobSpec("x", JobPriority.BATCH, null, 1));
+            }
+            assertThrows(RejectedExecutionException.class,
+                () -> scheduler.submit(job(0), new JobSpec("x", JobPriority.BATCH, null, 1)));
+
+            try (AdaptiveLoadPolicy.Ticket next = loadPolicy.admit()) {
+                AdaptiveLoadPolicy.Decision decision = next.decision();
+                assertTrue(decision.pressure() >= 2.0, "pressure " + decision.pressure());
+                assertEquals("veryfast", decision.settings().preset());
+                assertEquals(3, decision.applied().size());
+            }
+        } finally {
+            release.complete(null);
+            scheduler.shutdown();
+        }
+    }
+
+    private GenerationRequest job(long millis) {
+        long id = jobIds.incrementAndGet();
+        durations.put(id, millis);
+        return GenerationRequest.seeded(id);
+    }
+}
@@ -0,0 +1,132 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLoadPolicyTest {
+
+    private OneClickVideoProperties properties;
+    private AdaptiveLoadPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OneClickVideoProperties();
+        properties.getAdaptive().setMaxConcurrentJobs(2);
+        policy = new AdaptiveLoadPolicy(properties);
+    }
+
+    @Test
+    void keepsConfiguredSettingsWhenIdle() {
+        try (AdaptiveLoadPolicy.Ticket ticket = policy.admit()) {
+            AdaptiveLoadPolicy.Decision decision = ticket.decision();
+
+            assertEquals(RenderSettings.from(properties.getVideo()), decision.settings());
+            assertTrue(decision.applied().isEmpty());
+            assertEquals(0.5, decision.pressure(), 1e-9, "the admitted job counts towards its own pressure");
+        }
+        assertEquals(0, policy.inFlight());
+    }
+
+    @Test
+    void stepsDownWithinOperatorBoundsAsQueueGrows() {
+        List<AdaptiveLoadPolicy.Ticket> tickets = new ArrayList<>();
+        tickets.add(policy.admit());
+        assertTrue(tickets.get(0).decision().applied().isEmpty());
+
+        tickets.add(policy.admit());
+        AdaptiveLoadPolicy.Decision saturated = tickets.get(1).decision();
+        assertEquals("veryfast", saturated.settings().preset());
+        assertEquals(1920, saturated.settings().width());
+        assertEquals(1, saturated.applied().size());
+
+        tickets.add(policy.admit());
+        tickets.add(policy.admit());
+        AdaptiveLoadPolicy.Decision overloaded = tickets.get(3).decision();
+        assertEquals(1280, overloaded.settings().width());
+        assertEquals(720, overloaded.settings().height());
+        assertEquals(15, overloaded.settings().duration());
+        assertEquals(3, overloaded.applied().size());
+
+        properties.getAdaptive().setMinWidth(1600);
+        properties.getAdaptive().setMinDuration(25);
+        tickets.add(policy.admit());
+        AdaptiveLoadPolicy.Decision bounded = tickets.get(4).decision();
+        assertEquals(1600, bounded.settings().width());
+        assertEquals(900, bounded.settings().height());
+        assertEquals(25, bounded.settings().duration());
+
+        tickets.forEach(AdaptiveLoadPolicy.Ticket::close);
+        tickets.forEach(AdaptiveLoadPolicy.Ticket::close);
+        assertEquals(0, policy.inFlight(), "closing a ticket twice releases it once");
+        assertTrue(policy.decide().applied().isEmpty());
+    }
+
+    @Test
+    void concurrentAdmissionsSeeEachOther() throws Exception {
+        int jobs = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<AdaptiveLoadPolicy.Ticket>> admitted = new ArrayList<>();
+            for (int i = 0; i < jobs; i++) {
+                admitted.add(executor.submit(() -> {
+                    start.await();
+                    return policy.admit();
+                }));
+            }
+            start.countDown();
+
+            List<Double> pressures = new ArrayList<>();
+            for (Future<AdaptiveLoadPolicy.Ticket> ticket : admitted) {
+                pressures.add(ticket.get().decision().pressure());
+            }
+            pressures.sort(null);
+            for (int i = 0; i < jobs; i++) {
+                assertEquals((i + 1) / 2.0, pressures.get(i), 1e-9, "every admission sees a distinct load");
+            }
+            for (Future<AdaptiveLoadPolicy.Ticket> ticket : admitted) {
+                ticket.get().close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, policy.inFlight());
+    }
+
+    @Test
+    void slowRecentJobsRaiseTimePressure() {
+        properties.getAdaptive().setTargetJobSeconds(10);
+        RenderSettings settings = RenderSettings.from(properties.getVideo());
+        policy.recordRender(settings, 30, TimeUnit.SECONDS.toNanos(12));
+        policy.recordEncode(settings, 30, TimeUnit.SECONDS.toNanos(12));
+
+        try (AdaptiveLoadPolicy.Ticket ticket = policy.admit()) {
+            AdaptiveLoadPolicy.Decision decision = ticket.decision();
+
+            assertTrue(decision.pressure() >= AdaptiveLoadPolicy.DURATION_PRESSURE);
+            assertEquals(3, decision.applied().size());
+        }
+    }
+
+    @Test
+    void disabledPolicyNeverDegrades() {
+        properties.getAdaptive().setEnabled(false);
+        policy.admit();
+        policy.admit();
+        policy.admit();
+
+        assertTrue(policy.admit().decision().applied().isEmpty());
+    }
+}
@@ -0,0 +1,177 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Seeded generation must be bit-identical across runs and threads. Raster hashes
+ * are also compared against goldens recorded per rendering environment (OS, JDK
+ * feature release, resolved font and a fingerprint of its glyph outlines), because
+ * antialiased text differs between font stacks. Locally an unknown environment is
+ * skipped after writing candidate goldens; on CI it fails.
+ */
+class FrameGoldenHashTest {
+
+    private static final long SEED = 20240501L;
+    private static final Instant GENERATED_AT = Instant.parse("2024-05-01T10:15:30Z");
+    private static final Clock FIXED_CLOCK = Clock.fixed(GENERATED_AT, ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameSeedAndConfigProduceIdenticalFramesAndFilenames() throws Exception {
+        CompletableFuture<List<String>> first = CompletableFuture.supplyAsync(() -> render(tempDir.resolve("a")));
+        CompletableFuture<List<String>> second = CompletableFuture.supplyAsync(() -> render(tempDir.resolve("b")));
+
+        List<String> firstHashes = first.get();
+        assertEquals(firstHashes, second.get());
+        assertEquals(framesDirName(tempDir.resolve("a")), framesDirName(tempDir.resolve("b")));
+        assertEquals("Epic-Mountain-Trail-Adventure---Kids-Bike-Safety-20240501-101530_frames",
+            framesDirName(tempDir.resolve("a")));
+    }
+
+    @Test
+    void frameRastersMatchRecordedGoldens() throws Exception {
+        List<String> hashes = render(tempDir.resolve("golden"));
+        String environment = environmentKey();
+
+        Properties goldens = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/golden/frame-hashes.properties")) {
+            if (in != null) {
+                goldens.load(in);
+            }
+        }
+
+        if (goldens.getProperty(environment + ".frame_000") == null) {
+            Properties candidate = new Properties();
+            for (int i = 0; i < hashes.size(); i++) {
+                candidate.setProperty(environment + ".frame_" + String.format("%03d", i), hashes.get(i));
+            }
+            Path out = Path.of("target", "golden", "frame-hashes.properties");
+            Files.createDirectories(out.getParent());
+            try (OutputStream os = Files.newOutputStream(out)) {
+                candidate.store(os, "Candidate goldens; append to src/test/resources/golden/frame-hashes.properties");
+            }
+        }
+        boolean recorded = goldens.getProperty(environment + ".frame_000") != null;
+        String missing = "No golden frame hashes recorded for " + environment +
+            "; candidates written to target/golden/frame-hashes.properties";
+        if (System.getenv("CI") != null) {
+            assertTrue(recorded, missing);
+        }
+        assumeTrue(recorded, missing);
+
+        for (int i = 0; i < hashes.size(); i++) {
+            assertEquals(goldens.getProperty(environment + ".frame_" + String.format("%03d", i)), hashes.get(i),
+                "Frame " + i + " raster changed");
+        }
+    }
+
+    private List<String> render(Path outputDir) {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(outputDir.toString());
+        properties.getVideo().setDuration(4);
+        properties.getVideo().setWidth(320);
+        properties.getVideo().setHeight(180);
+        properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
+
+        VideoService service = new VideoService(properties, FIXED_CLOCK);
+        assertThrows(IOException.class, () -> service.generate(GenerationRequest.seeded(SEED)));
+
+        try (Stream<Path> frames = Files.list(outputDir.resolve(framesDirName(outputDir)))) {
+            List<String> hashes = new ArrayList<>();
+            for (Path frame : frames.sorted().toList()) {
+                hashes.add(rasterHash(ImageIO.read(frame.toFile())));
+            }
+            return hashes;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String framesDirName(Path outputDir) {
+        try (Stream<Path> entries = Files.list(outputDir)) {
+            return entries.filter(Files::isDirectory).findFirst().orElseThrow().getFileName().toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String rasterHash(BufferedImage image) {
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        ByteBuffer buffer = ByteBuffer.allocate(pixels.length * 4);
+        buffer.asIntBuffer().put(pixels);
+        return HexFormat.of().formatHex(sha256().digest(buffer.array()));
+    }
+
+    /**
+     * Everything that decides how text rasterizes, but not the JDK patch release:
+     * the OS, the Java feature release, the family every frame font resolves to and
+     * a hash of their glyph outlines, which changes with the actual font files.
+     */
+    static String environmentKey() {
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        MessageDigest digest = sha256();
+        StringBuilder families = new StringBuilder();
+        for (Font font : List.of(VideoService.CHANNEL_FONT, VideoService.TITLE_FONT, VideoService.STORY_FONT,
+            VideoService.SAFETY_FONT, VideoService.FOOTER_FONT)) {
+            if (families.indexOf(font.getFamily()) < 0) {
+                families.append(families.length() > 0 ? "+" : "").append(font.getFamily());
+            }
+            PathIterator outline = font.createGlyphVector(frc, "Safety First! Frame 1/60 Ag").getOutline()
+                .getPathIterator(null);
+            float[] coords = new float[6];
+            while (!outline.isDone()) {
+                int type = outline.currentSegment(coords);
+                digest.update((byte) type);
+                for (float coord : coords) {
+                    digest.update(Integer.toString(Math.round(coord * 64)).getBytes(StandardCharsets.US_ASCII));
+                }
+                outline.next();
+            }
+        }
+        String fingerprint = HexFormat.of().formatHex(digest.digest()).substring(0, 8);
+        String key = System.getProperty("os.name") + "-" + Runtime.version().feature() + "-" + families + "-" +
+            fingerprint;
+        return key.replaceAll("[^A-Za-z0-9.]", "_");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.encoding.EncodeJob;
+import com.oneclickvideo.encoding.PngSequenceFFmpegEncoder;
+import com.oneclickvideo.encoding.VideoEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the FFmpeg CPU time of one split-graph run producing the main video,
+ * renditions and preview against one FFmpeg run per output, over the same PNG
+ * frames. Needs a real FFmpeg with libx264 ({@code -Dloadtest.ffmpeg}, default
+ * {@code ffmpeg} on the PATH) and is skipped without one. Writes
+ * {@code target/load-test/split-graph.txt}.
+ *
+ * Part of the load-test profile: {@code mvn -Ploadtest test}.
+ */
+@Tag("load")
+@DisabledOnOs(OS.WINDOWS)
+class SplitGraphCostTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void splitGraphCostsLessCpuThanSeparateRuns() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setFfmpegCommand(System.getProperty("loadtest.ffmpeg", "ffmpeg"));
+        properties.getVideo().setWidth(1280);
+        properties.getVideo().setHeight(720);
+        properties.getVideo().setDuration(5);
+        properties.getVideo().setFrameRate(30);
+        properties.getOutputs().setRenditionHeights(List.of(480, 360));
+        assumeTrue(hasLibx264(properties.getVideo().getFfmpegCommand()), "needs FFmpeg with libx264");
+
+        RenderSettings settings = RenderSettings.from(properties.getVideo());
+        List<BufferedImage> frames = frames(settings);
+
+        Path splitDir = Files.createDirectory(tempDir.resolve("split"));
+        OutputPlan plan = OutputPlan.of(splitDir.resolve("clip.mp4"), settings, properties.getOutputs());
+        long splitCpu = encodeCpuMillis(properties, settings, frames, splitDir, plan.encodedFiles(),
+            VideoService.ffmpegOutputArgs(plan, settings));
+
+        Path separateDir = Files.createDirectory(tempDir.resolve("separate"));
+        OutputPlan separate = OutputPlan.of(separateDir.resolve("clip.mp4"), settings, properties.getOutputs());
+        long separateCpu = encodeCpuMillis(properties, settings, frames, separateDir, List.of(separate.main()),
+            VideoService.ffmpegOutputArgs(separate.withoutDerivedStreams(), settings));
+        for (OutputPlan.Rendition rendition : separate.renditions()) {
+            separateCpu += encodeCpuMillis(properties, settings, frames, separateDir, List.of(rendition.path()),
+                List.of("-vf", "scale=-2:" + rendition.height(), "-c:v", "libx264", "-pix_fmt", "yuv420p",
+                    "-crf", "23", "-preset", settings.preset(), rendition.path().toString()));
+        }
+        separateCpu += encodeCpuMillis(properties, settings, frames, separateDir, List.of(separate.preview()),
+            List.of("-filter_complex", "[0:v]scale=" + separate.previewWidth() +
+                    ":-2:flags=lanczos,split[pva][pvb];[pva]palettegen[pal];[pvb][pal]paletteuse[pvout]",
+                "-map", "[pvout]", "-t", Integer.toString(separate.previewSeconds()), "-loop", "0",
+                separate.preview().toString()));
+
+        String report = String.format(Locale.ROOT,
+            "%d frames %dx%d, %d outputs: split graph %d ms FFmpeg CPU, separate runs %d ms (%.0f%% saved)%n",
+            frames.size(), settings.width(), settings.height(), plan.encoderBranches(), splitCpu, separateCpu,
+            100.0 * (separateCpu - splitCpu) / separateCpu);
+        Path out = Path.of("target", "load-test", "split-graph.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report);
+        System.out.print(report);
+
+        assertTrue(splitCpu < separateCpu, report);
+    }
+
+    private static long encodeCpuMillis(OneClickVideoProperties properties, RenderSettings settings,
+                                        List<BufferedImage> frames, Path dir, List<Path> outputs,
+                                        List<String> outputArgs) throws IOException {
+        Path workDir = Files.createTempDirectory(dir, "frames");
+        EncodeJob job = new EncodeJob(workDir, settings.width(), settings.height(), frames.size(),
+            settings.frameRate(), outputs.get(0), outputs, outputArgs);
+        try (VideoEncoder.Session session = new PngSequenceFFmpegEncoder(properties.getVideo())
+            .open(job, VideoEncoder.ProgressListener.NONE)) {
+            for (BufferedImage frame : frames) {
+                session.writeFrame(frame);
+            }
+            session.finish();
+            return session.processUsage().cpu().toMillis();
+        }
+    }
+
+    private static List<BufferedImage> frames(RenderSettings settings) {
+        VideoScript script = new VideoScript("Riding Roney", "Split Graph Benchmark",
+            "Helmet on, knee pads secure. Ride the forest trail safely and wave at every rider you meet today!",
+            LocalDateTime.of(2024, 5, 1, 10, 0));
+        StoryTimeline timeline = StoryTimeline.layout(script, settings, true, 0.5);
+        StoryTimeline.Painter painter = timeline.painter();
+        List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < settings.frameCount(); i++) {
+            BufferedImage painted = painter.paint(timeline.segmentOf(i));
+            BufferedImage copy = new BufferedImage(settings.width(), settings.height(), BufferedImage.TYPE_INT_RGB);
+            copy.setData(painted.getRaster());
+            frames.add(copy);
+        }
+        return frames;
+    }
+
+    private static boolean hasLibx264(String ffmpeg) {
+        try {
+            Process process = new ProcessBuilder(ffmpeg, "-hide_banner", "-encoders").redirectErrorStream(true)
+                .start();
+            String encoders = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return process.waitFor() == 0 && encoders.contains("libx264");
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.oneclickvideo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoryTimelineTest {
+
+    private static final VideoScript SCRIPT = new VideoScript("Channel", "Title",
+        "one two three four five six seven eight nine ten eleven twelve thirteen",
+        LocalDateTime.of(2024, 5, 1, 10, 15));
+
+    @Test
+    void keyframesAtThirtyFpsMatchOneFps() {
+        StoryTimeline slow = StoryTimeline.layout(SCRIPT, settings(1), true, 0.5);
+        StoryTimeline fast = StoryTimeline.layout(SCRIPT, settings(30), true, 0.5);
+        StoryTimeline.Painter slowPainter = slow.painter();
+        StoryTimeline.Painter fastPainter = fast.painter();
+
+        for (int second = 0; second < 10; second++) {
+            int[] expected = pixels(slowPainter.paint(slow.segmentOf(second))).clone();
+            assertArrayEquals(expected, pixels(fastPainter.paint(fast.segmentOf(second * 30))),
+                "keyframe " + second);
+        }
+    }
+
+    @Test
+    void identicalFramesShareOneSegment() {
+        StoryTimeline timeline = StoryTimeline.layout(SCRIPT, settings(30), true, 0.5);
+        List<StoryTimeline.Segment> segments = timeline.segments();
+
+        assertEquals(300, segments.stream().mapToInt(StoryTimeline.Segment::length).sum());
+        for (int second = 0; second < StoryTimeline.LEAD_IN_SECONDS; second++) {
+            assertEquals(30, timeline.segmentOf(second * 30).length(), "lead-in second " + second + " is static");
+        }
+        assertTrue(segments.size() < 300 / 2, segments.size() + " distinct frames");
+
+        // Second 6 holds its keyframe for half a second (plus the first sub-pixel
+        // steps of the ease-in), then scrolls up one line.
+        StoryTimeline.Segment hold = timeline.segmentOf(6 * 30);
+        assertTrue(hold.length() >= 16 && hold.length() < 20, "hold of " + hold.length());
+        int previous = 0;
+        for (int frame = hold.firstFrame() + hold.length(); frame < 7 * 30; frame++) {
+            int scroll = timeline.segmentOf(frame).scrollPixels();
+            assertTrue(scroll >= previous && scroll <= StoryTimeline.LINE_HEIGHT);
+            previous = scroll;
+        }
+        assertTrue(previous > StoryTimeline.LINE_HEIGHT * 3 / 4);
+        assertEquals(2, timeline.segmentOf(7 * 30).firstWord());
+        assertEquals(0, timeline.segmentOf(7 * 30).scrollPixels());
+    }
+
+    @Test
+    void scrollingFramesDifferFromTheirKeyframe() {
+        StoryTimeline timeline = StoryTimeline.layout(SCRIPT, settings(30), true, 0.5);
+        StoryTimeline.Painter painter = timeline.painter();
+
+        int[] keyframe = pixels(painter.paint(timeline.segmentOf(6 * 30))).clone();
+        int[] midScroll = pixels(painter.paint(timeline.segmentOf(6 * 30 + 23)));
+        assertFalse(Arrays.equals(keyframe, midScroll));
+    }
+
+    private static RenderSettings settings(int frameRate) {
+        return new RenderSettings(320, 480, 10, frameRate, "medium");
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
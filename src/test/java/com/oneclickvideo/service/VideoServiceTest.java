@@ -1,16 +1,28 @@
 package com.oneclickvideo.service;
 
 import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.content.IndexedContentCatalog;
+import com.oneclickvideo.encoding.EncoderRegistry;
+import com.oneclickvideo.frames.DeltaFrameReader;
+import com.oneclickvideo.tracing.JobTracer;
+import com.oneclickvideo.tracing.ResourceUsage;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Random;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -32,7 +44,7 @@ class VideoServiceTest {
         properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
         properties.getContent().setChannelName("Config Driven Channel");
 
-        VideoService service = new VideoService(properties, new Random(0));
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
 
         IOException error = assertThrows(IOException.class, service::generateRidingVideo);
         assertTrue(error.getMessage().contains("FFmpeg is required"));
@@ -66,7 +78,7 @@ class VideoServiceTest {
         properties.getVideo().setHeight(90);
         properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
 
-        VideoService service = new VideoService(properties, new Random(0));
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
 
         assertThrows(IOException.class, service::generateRidingVideo);
 
@@ -78,4 +90,186 @@ class VideoServiceTest {
         String name = framesDir.getFileName().toString();
         assertTrue(name.matches("[A-Za-z0-9-]+-\\d{8}-\\d{6}_frames"));
     }
+
+    @Test
+    void ffmpegCommandFansOneDecodeOutToAllRenditions() {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setFfmpegCommand("ffmpeg");
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
+        RenderSettings settings = RenderSettings.from(properties.getVideo());
+        Path main = tempDir.resolve("Video-20240101-000000.mp4");
+        OutputPlan plan = OutputPlan.of(main, settings, properties.getOutputs());
+
+        List<String> command = service.ffmpegCommand(tempDir.resolve("frames"), plan, settings);
+
+        assertEquals(1, command.stream().filter("-i"::equals).count());
+        String graph = command.get(command.indexOf("-filter_complex") + 1);
+        assertTrue(graph.startsWith("[0:v]split=3[main][r0][pv]"));
+        assertTrue(graph.contains("[r0]scale=-2:720[r0out]"));
+        assertTrue(graph.contains("palettegen"));
+        assertTrue(command.contains(tempDir.resolve("Video-20240101-000000.720p.mp4").toString()));
+        assertTrue(command.contains(tempDir.resolve("Video-20240101-000000.preview.gif").toString()));
+        int mainOutput = command.indexOf(main.toString());
+        assertTrue(mainOutput > command.indexOf("[main]") && mainOutput < command.indexOf("[r0out]"));
+    }
+
+    @Test
+    void ffmpegCommandKeepsSingleOutputWhenNothingIsDerived() {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setHeight(720);
+        properties.getOutputs().setPreview(false);
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
+        RenderSettings settings = RenderSettings.from(properties.getVideo());
+        OutputPlan plan = OutputPlan.of(tempDir.resolve("Video.mp4"), settings, properties.getOutputs());
+
+        List<String> command = service.ffmpegCommand(tempDir.resolve("frames"), plan, settings);
+
+        assertFalse(command.contains("-filter_complex"));
+        assertEquals(tempDir.resolve("Video.mp4").toString(), command.get(command.size() - 1));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void generateProducesEveryOutputFromOneRender() throws Exception {
+        Path stub = tempDir.resolve("stub-ffmpeg.sh");
+        Files.writeString(stub, "#!/bin/sh\necho encoding\nsleep 0.2\n" +
+            "for a in \"$@\"; do case \"$a\" in *.mp4|*.gif|*.webp) printf x > \"$a\";; esac; done\n");
+        assertTrue(stub.toFile().setExecutable(true));
+
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(tempDir.resolve("out").toString());
+        properties.getVideo().setDuration(2);
+        properties.getVideo().setWidth(320);
+        properties.getVideo().setHeight(240);
+        properties.getVideo().setFfmpegCommand(stub.toString());
+        properties.getOutputs().setRenditionHeights(List.of(120));
+
+        GenerationResult result = new VideoService(properties, Clock.systemDefaultZone())
+            .generate(GenerationRequest.seeded(1));
+
+        assertEquals(List.of("main", "120p", "poster", "preview"), List.copyOf(result.outputs().keySet()));
+        for (File output : result.outputs().values()) {
+            assertTrue(output.isFile(), output + " missing");
+        }
+        BufferedImage poster = ImageIO.read(result.outputs().get("poster"));
+        assertEquals(320, poster.getWidth());
+
+        ResourceUsage usage = result.usage();
+        assertEquals(32, usage.traceId().length());
+        assertEquals(List.of("admission", "layout", "render", "encode", "poster", "finish"),
+            List.copyOf(usage.stageMillis().keySet()));
+        assertTrue(usage.stageMillis().get("finish") >= 200, "FFmpeg runs in the finish stage");
+        assertTrue(usage.allocatedBytes() > 0);
+        assertTrue(usage.diskBytesWritten() > 4L * 320 * 240, "spool and outputs are counted");
+        if (Files.isDirectory(Path.of("/proc/self"))) {
+            assertTrue(usage.encoderProcessPeakRssBytes() > 0, "FFmpeg RSS sampled from /proc");
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void failedJobLeavesNoPartialOutputs() throws Exception {
+        // Creates every output it is given, then swallows frames until killed.
+        Path ffmpeg = tempDir.resolve("partial-ffmpeg.sh");
+        Files.writeString(ffmpeg, "#!/bin/sh\nfor a; do case \"$a\" in *.mp4|*.gif) echo partial > \"$a\";; esac; done\n" +
+            "exec cat > /dev/null\n");
+        assertTrue(ffmpeg.toFile().setExecutable(true));
+        Path outputDir = Files.createDirectory(tempDir.resolve("out"));
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(outputDir.toString());
+        properties.getVideo().setDuration(2);
+        properties.getVideo().setWidth(320);
+        properties.getVideo().setHeight(240);
+        properties.getVideo().setFfmpegCommand(ffmpeg.toString());
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
+
+        GenerationListener failing = new GenerationListener() {
+            @Override
+            public void onProgress(int framesEncoded, int totalFrames) {
+                if (framesEncoded == 2) {
+                    throw new IllegalStateException("client went away");
+                }
+            }
+        };
+        assertThrows(IllegalStateException.class,
+            () -> service.generate(GenerationRequest.seeded(1).withEncoder("raw-ffmpeg").withListener(failing)));
+
+        try (var files = Files.list(outputDir)) {
+            assertEquals(List.of(), files.filter(Files::isRegularFile).toList());
+        }
+    }
+
+    @Test
+    void generateWithMjpegEncoderNeedsNoFfmpeg() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(tempDir.toString());
+        properties.getVideo().setDuration(2);
+        properties.getVideo().setWidth(320);
+        properties.getVideo().setHeight(240);
+        properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
+        properties.getVideo().setFrameRate(30);
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
+
+        GenerationResult avi = service.generate(GenerationRequest.seeded(1).withEncoder("mjpeg"));
+        assertTrue(avi.file().getName().endsWith(".avi"));
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(avi.file().toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(60, header.getInt(48), "every frame is written, repeats included");
+        assertEquals(List.of("main", "poster"), List.copyOf(avi.outputs().keySet()));
+
+        GenerationResult discarded = service.generate(GenerationRequest.seeded(2).withEncoder("null"));
+        assertEquals(null, discarded.file());
+        assertEquals(List.of("poster"), List.copyOf(discarded.outputs().keySet()));
+    }
+
+    @Test
+    void recordsFramesBesideTheEncodedVideo() throws Exception {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(tempDir.toString());
+        properties.getVideo().setDuration(2);
+        properties.getVideo().setWidth(320);
+        properties.getVideo().setHeight(240);
+        properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
+        properties.getVideo().setFrameRate(30);
+        properties.getOutputs().setRecording(true);
+        VideoService service = new VideoService(properties, Clock.systemDefaultZone());
+
+        GenerationResult avi = service.generate(GenerationRequest.seeded(1).withEncoder("mjpeg"));
+        assertEquals(List.of("main", "poster", "recording"), List.copyOf(avi.outputs().keySet()));
+        Path recording = avi.outputs().get("recording").toPath();
+        assertEquals(VideoService.baseName(avi.file().toPath()) + ".frames.ocvf", recording.getFileName().toString());
+        assertEquals(60, DeltaFrameReader.countFrames(recording), "the video keeps every frame it was recorded with");
+
+        GenerationResult recorded = service.generate(GenerationRequest.seeded(2).withEncoder("delta-frames"));
+        assertEquals(List.of("main", "poster"), List.copyOf(recorded.outputs().keySet()),
+            "a delta-frames job is its own recording");
+    }
+
+    @Test
+    void costsEachRequestFromItsOwnStoryEncoderAndLoad() {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setFrameRate(30);
+        properties.getAdaptive().setMaxConcurrentJobs(1);
+        IndexedContentCatalog catalog = IndexedContentCatalog.builder()
+            .add("brief", "trail", "Brief", "Helmet on, let's ride!", null, 1)
+            .add("epic", "trail", "Epic", String.join(" ", Collections.nCopies(30, "pedal")), null, 1)
+            .build();
+        AdaptiveLoadPolicy loadPolicy = new AdaptiveLoadPolicy(properties);
+        VideoService service = new VideoService(properties, catalog, Clock.systemDefaultZone(), event -> { },
+            loadPolicy, new EncoderRegistry(properties), new JobTracer(properties));
+
+        double brief = service.costOf(new GenerationRequest(null, "brief", null, "mjpeg"));
+        double epic = service.costOf(new GenerationRequest(null, "epic", null, "mjpeg"));
+        assertTrue(epic > brief, "a longer story scrolls through more distinct frames: " + epic + " vs " + brief);
+
+        double renditions = service.costOf(new GenerationRequest(null, "epic", null, "png-ffmpeg"));
+        double renderOnly = service.costOf(new GenerationRequest(null, "epic", null, "null"));
+        assertTrue(renditions > epic, "the 720p rendition is encoded too");
+        assertTrue(renderOnly < epic, "nothing is encoded");
+
+        try (AdaptiveLoadPolicy.Ticket first = loadPolicy.admit();
+             AdaptiveLoadPolicy.Ticket second = loadPolicy.admit()) {
+            double degraded = service.costOf(new GenerationRequest(null, "epic", null, "mjpeg"));
+            assertTrue(degraded < epic / 3, "a stepped-down job is smaller and shorter: " + degraded + " vs " + epic);
+        }
+    }
 }
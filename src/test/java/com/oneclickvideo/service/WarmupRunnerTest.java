@@ -0,0 +1,76 @@
+package com.oneclickvideo.service;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmupRunnerTest {
+
+    @Test
+    void reportsOutOfServiceUntilWarmedUp() {
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setWidth(160);
+        properties.getVideo().setHeight(90);
+        properties.getVideo().setFfmpegCommand("missing-ffmpeg-command");
+        properties.getWarmup().setFrames(2);
+
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.refresh();
+            Clock clock = Clock.systemDefaultZone();
+            WarmupRunner runner = new WarmupRunner(new VideoService(properties, clock), properties, context, clock);
+
+            assertFalse(runner.isWarm());
+            assertEquals(Status.OUT_OF_SERVICE, runner.health().getStatus());
+
+            runner.run(new DefaultApplicationArguments());
+
+            assertTrue(runner.isWarm());
+            assertEquals(Status.UP, runner.health().getStatus());
+            assertTrue((Long) runner.health().getDetails().get("coldFrameMillis") >= 0);
+            assertNull(runner.getFfmpegVersion());
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void hungFfmpegProbeTimesOut(@TempDir Path tempDir) throws Exception {
+        Path stub = tempDir.resolve("hung-ffmpeg.sh");
+        Files.writeString(stub, "#!/bin/sh\necho 'ffmpeg version hung'\nexec sleep 60\n");
+        assertTrue(stub.toFile().setExecutable(true));
+
+        OneClickVideoProperties properties = new OneClickVideoProperties();
+        properties.getVideo().setWidth(160);
+        properties.getVideo().setHeight(90);
+        properties.getVideo().setFfmpegCommand(stub.toString());
+        properties.getWarmup().setFrames(1);
+        properties.getWarmup().setFfmpegProbeTimeoutSeconds(1);
+
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.refresh();
+            Clock clock = Clock.systemDefaultZone();
+            WarmupRunner runner = new WarmupRunner(new VideoService(properties, clock), properties, context, clock);
+
+            long started = System.nanoTime();
+            runner.run(new DefaultApplicationArguments());
+
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 10, "probe timeout fired");
+            assertTrue(runner.isWarm());
+            assertNull(runner.getFfmpegVersion());
+        }
+    }
+}
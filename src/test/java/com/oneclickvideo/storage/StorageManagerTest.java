@@ -0,0 +1,155 @@
+package com.oneclickvideo.storage;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.service.VideoEncodedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OneClickVideoProperties properties;
+    private SimpleMeterRegistry registry;
+    private StorageManager storageManager;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OneClickVideoProperties();
+        properties.getVideo().setOutputDir(tempDir.toString());
+        properties.getVideo().setFfmpegTimeoutSeconds(60);
+        registry = new SimpleMeterRegistry();
+        storageManager = new StorageManager(properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageManager.stop();
+    }
+
+    @Test
+    void deletesFramesAfterSuccessfulEncode() throws Exception {
+        Path framesDir = Files.createDirectories(tempDir.resolve("video_frames"));
+        Files.write(framesDir.resolve("frame_000.png"), new byte[16]);
+        Path video = Files.write(tempDir.resolve("video.mp4"), new byte[16]);
+
+        storageManager.onVideoEncoded(new VideoEncodedEvent(video, framesDir));
+        storageManager.awaitIdle();
+
+        assertFalse(Files.exists(framesDir));
+        assertTrue(Files.exists(video));
+    }
+
+    @Test
+    void keepsFramesWhenCleanupDisabled() throws Exception {
+        properties.getStorage().setDeleteFramesAfterEncode(false);
+        Path framesDir = Files.createDirectories(tempDir.resolve("video_frames"));
+
+        storageManager.onVideoEncoded(new VideoEncodedEvent(tempDir.resolve("video.mp4"), framesDir));
+        storageManager.awaitIdle();
+
+        assertTrue(Files.exists(framesDir));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedVideosOverQuota() throws Exception {
+        properties.getStorage().setMaxTotalMegabytes(2);
+        Path oldest = video("oldest.mp4", Duration.ofHours(3));
+        Path oldestPreview = age(Files.write(tempDir.resolve("oldest.preview.gif"), new byte[64]), Duration.ofHours(3));
+        Path older = video("older.mp4", Duration.ofHours(2));
+        Path recent = video("recent.mp4", Duration.ofHours(1));
+        Path inFlight = video("in-flight.mp4", Duration.ZERO);
+
+        storageManager.sweep();
+
+        assertFalse(Files.exists(oldest));
+        assertFalse(Files.exists(oldestPreview));
+        assertFalse(Files.exists(older));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(inFlight));
+        assertEquals(2, registry.get("video.storage.videos").gauge().value());
+        assertEquals(2L * 1024 * 1024, (long) registry.get("video.storage.used").gauge().value());
+    }
+
+    @Test
+    void evictsVideosAndFramesPastMaxAge() throws Exception {
+        properties.getStorage().setMaxAgeHours(24);
+        Path stale = video("stale.mp4", Duration.ofDays(2));
+        Path fresh = video("fresh.mp4", Duration.ofHours(2));
+        Path staleFrames = Files.createDirectories(tempDir.resolve("stale_frames"));
+        age(Files.write(staleFrames.resolve("frame_000.png"), new byte[8]), Duration.ofDays(2));
+        age(staleFrames, Duration.ofDays(2));
+
+        storageManager.sweep();
+
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(staleFrames));
+        assertTrue(Files.exists(fresh));
+        assertEquals(0, registry.get("video.storage.frame.dirs").gauge().value());
+    }
+
+    @Test
+    void sweepsFramesOfFailedJobsBeforeEvictingVideos() throws Exception {
+        // Over quota by the orphaned frames alone; the running job's frames count too.
+        properties.getStorage().setMaxTotalMegabytes(3);
+        Path video = video("kept.mp4", Duration.ofHours(3));
+        Path other = video("other.mp4", Duration.ofHours(2));
+        Path orphan = frames("failed_frames", Duration.ofHours(1));
+        Path running = frames("running_frames", Duration.ZERO);
+
+        storageManager.sweep();
+
+        assertFalse(Files.exists(orphan), "frames of a failed job are garbage without an age limit");
+        assertTrue(Files.exists(running));
+        assertTrue(Files.exists(video));
+        assertTrue(Files.exists(other));
+        assertEquals(1, registry.get("video.storage.frame.dirs").gauge().value());
+    }
+
+    @Test
+    void evictsKeptFramesBeforeVideosOverQuota() throws Exception {
+        properties.getStorage().setDeleteFramesAfterEncode(false);
+        properties.getStorage().setMaxTotalMegabytes(2);
+        Path video = video("kept.mp4", Duration.ofHours(3));
+        Path older = frames("older_frames", Duration.ofHours(2));
+        Path newer = frames("newer_frames", Duration.ofHours(1));
+
+        storageManager.sweep();
+
+        assertFalse(Files.exists(older));
+        assertTrue(Files.exists(newer), "back under quota once the oldest frames are gone");
+        assertTrue(Files.exists(video));
+    }
+
+    private Path frames(String name, Duration age) throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve(name));
+        age(Files.write(dir.resolve("frame_000.png"), new byte[1024 * 1024]), age);
+        return age(dir, age);
+    }
+
+    private Path video(String name, Duration age) throws IOException {
+        return age(Files.write(tempDir.resolve(name), new byte[1024 * 1024]), age);
+    }
+
+    private static Path age(Path path, Duration age) throws IOException {
+        FileTime time = FileTime.from(Instant.now().minus(age));
+        Files.setLastModifiedTime(path, time);
+        Files.setAttribute(path, "lastAccessTime", time);
+        return path;
+    }
+}
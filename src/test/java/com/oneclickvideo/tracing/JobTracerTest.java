@@ -0,0 +1,55 @@
+package com.oneclickvideo.tracing;
+
+import com.oneclickvideo.config.OneClickVideoProperties;
+import com.oneclickvideo.encoding.ProcessUsage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobTracerTest {
+
+    @Test
+    void jobExportsRootAndStageSpansWithResourceTotals() throws Exception {
+        JobTracer tracer = new JobTracer(new OneClickVideoProperties.Tracing());
+        ResourceUsage usage;
+        try (JobTrace trace = tracer.start("video.generate")) {
+            JobTrace.Stage render = trace.stage("render");
+            CompletableFuture.runAsync(() -> {
+                try (JobTrace.ThreadMeter meter = trace.meterRenderThread()) {
+                    long sum = 0;
+                    for (int i = 0; i < 5_000_000; i++) {
+                        sum += Integer.toString(i).length();
+                    }
+                    assertTrue(sum > 0);
+                }
+            }).whenComplete((ignored, error) -> render.close()).get();
+            try (JobTrace.Stage ignored = trace.stage("finish")) {
+                trace.recordEncoderProcess(new ProcessUsage(Duration.ofMillis(1500), 64L << 20));
+            }
+            trace.recordDiskBytesWritten(4096);
+            usage = trace.finish();
+        }
+
+        assertEquals(List.of("render", "finish"), List.copyOf(usage.stageMillis().keySet()));
+        assertTrue(usage.renderCpuMillis() > 0, "render thread CPU metered off the job thread");
+        assertTrue(usage.allocatedBytes() > 0);
+        assertEquals(4096, usage.diskBytesWritten());
+        assertEquals(1500, usage.encoderProcessCpuMillis());
+        assertEquals(64L << 20, usage.encoderProcessPeakRssBytes());
+        assertEquals(List.of("queue", "render", "finish"),
+            List.copyOf(usage.withEarlierStage("queue", 12).stageMillis().keySet()));
+
+        List<SpanRecord> spans = tracer.spans(usage.traceId());
+        assertEquals(List.of("render", "finish", "video.generate"), spans.stream().map(SpanRecord::name).toList());
+        SpanRecord root = spans.get(2);
+        assertNull(root.parentSpanId());
+        assertEquals(root.spanId(), spans.get(0).parentSpanId());
+        assertEquals("1500", root.attributes().get("job.encoder_process.cpu_ms"));
+    }
+}
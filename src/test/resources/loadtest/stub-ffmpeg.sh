@@ -0,0 +1,12 @@
+#!/bin/sh
+# Stand-in for ffmpeg in load tests: answers the warm-up version probe, spends a
+# fixed time "encoding", then writes a small placeholder for every output file.
+case "$*" in
+  *-version*) echo "ffmpeg version load-test-stub"; exit 0 ;;
+esac
+sleep @encode.seconds@
+for a in "$@"; do
+  case "$a" in
+    *.mp4|*.gif|*.webp) head -c 65536 /dev/zero > "$a" ;;
+  esac
+done